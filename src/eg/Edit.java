@@ -200,8 +200,8 @@ public class Edit {
     */
    public void selectLine() {
       int pos = textArea.getSelectionStart();
-      int lineStart = LinesFinder.lastNewline(edtDoc.text(), pos) + 1;
-      int lineEnd = LinesFinder.nextNewline(edtDoc.text(), pos);
+      int lineStart = LinesFinder.lastNewline(edtDoc.textView(), pos) + 1;
+      int lineEnd = LinesFinder.nextNewline(edtDoc.textView(), pos);
       textArea.select(lineStart, lineEnd);
    }
 
@@ -210,9 +210,9 @@ public class Edit {
     */
    public void selectLineText() {
       int pos = textArea.getSelectionStart();
-      int lineStart = LinesFinder.lastNewline(edtDoc.text(), pos) + 1;
-      String line = LinesFinder.line(edtDoc.text(), lineStart - 1);
-      int lineEnd = LinesFinder.nextNewline(edtDoc.text(), pos);
+      int lineStart = LinesFinder.lastNewline(edtDoc.textView(), pos) + 1;
+      String line = LinesFinder.line(edtDoc.textView(), lineStart - 1);
+      int lineEnd = LinesFinder.nextNewline(edtDoc.textView(), pos);
       int indentEnd = indentEnd(line);
       textArea.select(lineStart + indentEnd, lineEnd);
    }
@@ -222,7 +222,7 @@ public class Edit {
     */
    public void selectLineFromCursor() {
       int pos = textArea.getSelectionStart();
-      int lineEnd = LinesFinder.nextNewline(edtDoc.text(), pos);
+      int lineEnd = LinesFinder.nextNewline(edtDoc.textView(), pos);
       textArea.select(pos, lineEnd);
    }
 
@@ -291,8 +291,8 @@ public class Edit {
             insertIndent(start);
          }
          else {
-            int lineStart = LinesFinder.lastNewline(edtDoc.text(), start) + 1;
-            String line = LinesFinder.line(edtDoc.text(), lineStart - 1);
+            int lineStart = LinesFinder.lastNewline(edtDoc.textView(), start) + 1;
+            String line = LinesFinder.line(edtDoc.textView(), lineStart - 1);
             selArr[0] = line;
             int sum = 0;
             for (String s : selArr) {
@@ -332,8 +332,8 @@ public class Edit {
       }
       String sel = textArea.getSelectedText();
       int pos = textArea.getSelectionStart();
-      int lineStart = LinesFinder.lastNewline(edtDoc.text(), pos) + 1;
-      String line = LinesFinder.line(edtDoc.text(), lineStart - 1);
+      int lineStart = LinesFinder.lastNewline(edtDoc.textView(), pos) + 1;
+      String line = LinesFinder.line(edtDoc.textView(), lineStart - 1);
       String[] lines = null;
       if (sel != null) {
          lines = sel.split("\n");
@@ -370,13 +370,13 @@ public class Edit {
       else {
          String sel = textArea.getSelectedText();
          int pos = textArea.getSelectionStart();
-         lineStart = LinesFinder.lastNewline(edtDoc.text(), pos) + 1;
+         lineStart = LinesFinder.lastNewline(edtDoc.textView(), pos) + 1;
          String lines;
          if (sel == null) {
-            lines = LinesFinder.line(edtDoc.text(), lineStart - 1);
+            lines = LinesFinder.line(edtDoc.textView(), lineStart - 1);
          }
          else {
-            lines = LinesFinder.lines(edtDoc.text(), lineStart - 1, sel.length());
+            lines = LinesFinder.lines(edtDoc.textView(), lineStart - 1, sel.length());
          }
          textArr = lines.split("\n");
       }
@@ -64,6 +64,22 @@ public final class Prefs {
    /**
     * Key for the last used directory to save or open a file */
    public static final String RECENT_DIR_KEY = "RecentDir";
+   /**
+    * Key for the limit of the memory used to store the undoable edits
+    * of a document, a number of megabytes */
+   public static final String UNDO_MEMORY_KEY = "UndoMemory";
+   /**
+    * Key for the maximum number of lines in the console */
+   public static final String CONSOLE_LINES_KEY = "ConsoleLines";
+   /**
+    * Key for the limit of the memory used by the text in the console,
+    * a number of megabytes */
+   public static final String CONSOLE_MEMORY_KEY = "ConsoleMemory";
+   /**
+    * Key for appending text that is removed from the console to the
+    * file 'console.log' in the Eadgyth data directory; a 'Yes-No'
+    * property */
+   public static final String CONSOLE_SPILL_KEY = "ConsoleSpill";
    /**
     * Prefix for keys of properties of the exchange editor */
    public static final String EXCHG_PREFIX = "Exchg";
@@ -118,6 +134,10 @@ public final class Prefs {
          setProperty(LANG_KEY,  String.valueOf(Languages.NORMAL_TEXT));
          setProperty(EXCHG_PREFIX + LANG_KEY, String.valueOf(Languages.NORMAL_TEXT));
          setProperty(RECENT_DIR_KEY, "");
+         setProperty(UNDO_MEMORY_KEY, "32");
+         setProperty(CONSOLE_LINES_KEY, "20000");
+         setProperty(CONSOLE_MEMORY_KEY, "8");
+         setProperty(CONSOLE_SPILL_KEY, "No");
       }
    }
 
@@ -0,0 +1,331 @@
+package eg;
+
+import java.awt.EventQueue;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.JOptionPane;
+
+//--Eadgyth--/
+import eg.document.EditableDocument;
+import eg.filesearch.FileEdit;
+import eg.filesearch.FileMatch;
+import eg.filesearch.FilesSearch;
+import eg.filesearch.SearchQuery;
+import eg.filesearch.TrigramIndex;
+import eg.ui.ProjectSearchWin;
+import eg.utils.Dialogs;
+import eg.utils.FileUtils;
+
+/**
+ * The search and replacement of text in the files of the current
+ * project.
+ * <p>
+ * The search starts in the project directory and excludes the
+ * directory for executables. Files that are open in documents are
+ * searched in the texts of the documents. Matches are listed as soon
+ * as they are found and a search can be cancelled. A new search
+ * cancels a search that is in progress. The files that are searched
+ * are narrowed by a {@link TrigramIndex} of the project.
+ * <p>
+ * A replacement is first previewed. If carried out, the files that
+ * are not open are written only if none of them was changed since the
+ * preview, and the texts of documents are replaced in one undoable
+ * edit each.
+ */
+public class ProjectSearch {
+
+   private final ProjectSearchWin win = new ProjectSearchWin();
+   private final EditableDocument[] edtDoc;
+
+   private String projectDir = "";
+   private String execDir = "";
+   private TrigramIndex index = null;
+   private FilesSearch search = null;
+   private boolean isPreview = false;
+   private List<FileEdit> edits = Collections.emptyList();
+
+   /**
+    * @param edtDoc  the array of EditableDocument
+    * @param opener  the Consumer that opens the file of a
+    * <code>FileMatch</code> and selects the match
+    */
+   public ProjectSearch(EditableDocument[] edtDoc,
+         Consumer<FileMatch> opener) {
+
+      this.edtDoc = edtDoc;
+      win.setSearchAct(e -> start(false));
+      win.setPreviewAct(e -> start(true));
+      win.setCancelAct(e -> cancel());
+      win.setReplaceAct(e -> replace());
+      win.setOpenAct(opener);
+   }
+
+   /**
+    * Sets the project whose files are searched
+    *
+    * @param projectDir  the project directory
+    * @param projectName  the name of the project
+    * @param execDir  the directory for executables relative to the
+    * project directory; may be empty
+    */
+   public void setProject(String projectDir, String projectName,
+         String execDir) {
+
+      if (!projectDir.equals(this.projectDir)) {
+         cancel();
+         clear(false);
+         win.displayStatus("");
+         index = new TrigramIndex(projectDir);
+      }
+      this.projectDir = projectDir;
+      this.execDir = execDir;
+      win.setRoot(projectDir, projectName);
+   }
+
+   /**
+    * Makes the window for the search visible
+    */
+   public void openWindow() {
+      if (projectDir.isEmpty()) {
+         throw new IllegalStateException("No project has been set");
+      }
+      win.setVisible(true);
+   }
+
+   //
+   //--private--/
+   //
+
+   private void start(boolean isPreview) {
+      String term = win.searchTerm();
+      if (term.isEmpty()) {
+         return;
+      }
+      cancel();
+      clear(isPreview);
+      SearchQuery query;
+      try {
+         query = new SearchQuery(term, win.isRequireWord(),
+               win.isCaseSensitive(), win.isRegex());
+      }
+      catch (PatternSyntaxException e) {
+         win.displayStatus("Invalid regular expression: "
+               + e.getDescription());
+
+         return;
+      }
+      FilesSearch fs = new FilesSearch(projectDir, execDir, query);
+      fs.setDocumentTexts(documentTexts());
+      fs.setIndex(index);
+      if (isPreview) {
+         fs.setReplacement(win.replacement());
+      }
+      this.isPreview = isPreview;
+      search = fs;
+      win.enableCancel(true);
+      win.displayStatus("Searching ...");
+      fs.start(
+            list -> EventQueue.invokeLater(() -> {
+               if (fs == search && !fs.isCancelled()) {
+                  win.addMatches(list);
+                  win.displayStatus("Searching ... " + win.nMatches()
+                        + " matches");
+               }
+            }),
+            () -> EventQueue.invokeLater(() -> finish(fs)));
+   }
+
+   private void cancel() {
+      if (search != null) {
+         search.cancel();
+         win.displayStatus("Cancelled: " + win.nMatches() + " matches in "
+               + search.nSearchedFiles() + " searched files");
+
+         search = null;
+         win.enableCancel(false);
+      }
+   }
+
+   private void clear(boolean isPreview) {
+      edits = Collections.emptyList();
+      win.enableReplace(false);
+      win.clearMatches(isPreview);
+   }
+
+   private void finish(FilesSearch fs) {
+      if (fs != search) {
+         return;
+      }
+      search = null;
+      win.enableCancel(false);
+      if (fs.replacementError() != null) {
+         clear(true);
+         win.displayStatus("Invalid replacement: " + fs.replacementError());
+         return;
+      }
+      String msg = win.nMatches() + " matches in " + fs.nSearchedFiles()
+            + " searched files";
+
+      if (fs.isMaxMatches()) {
+         msg += " (the search stopped at the maximum of "
+               + FilesSearch.MAX_MATCHES + " matches)";
+      }
+      if (isPreview && win.nMatches() > 0) {
+         if (fs.isMaxMatches()) {
+            msg += ". Replacing is not possible";
+         }
+         else {
+            edits = fs.edits();
+            List<File> skipped = fs.skippedFiles();
+            if (!edits.isEmpty()) {
+               win.enableReplace(true);
+               msg += ". Press 'Replace all' to replace the matches in "
+                     + edits.size() + " files";
+            }
+            if (!skipped.isEmpty()) {
+               msg += ". Skipped " + skipped.size() + " files that cannot"
+                     + " be decoded without loss: " + fileNames(skipped);
+            }
+         }
+      }
+      win.displayStatus(msg);
+   }
+
+   private void replace() {
+      int count = 0;
+      for (FileEdit e : edits) {
+         count += e.count();
+      }
+      int res = Dialogs.confirmYesNo("Replace " + count
+            + " matches in " + edits.size() + " files?");
+
+      if (res != JOptionPane.YES_OPTION) {
+         return;
+      }
+      List<FileEdit> fileEdits = new ArrayList<>();
+      Map<FileEdit, EditableDocument> docEdits = new HashMap<>();
+      StringBuilder changed = new StringBuilder();
+      for (FileEdit e : edits) {
+         EditableDocument doc = openDocument(e.file());
+         boolean isUnchanged;
+         if (doc != null) {
+            isUnchanged = doc.text().equals(e.text());
+            docEdits.put(e, doc);
+         }
+         else {
+            isUnchanged = e.isFileUnchanged();
+            fileEdits.add(e);
+         }
+         if (!isUnchanged) {
+            changed.append("\n").append(e.file().getName());
+         }
+      }
+      if (changed.length() > 0) {
+         Dialogs.warnMessage("Files were changed since the preview:"
+               + changed + "\nNothing was replaced.");
+
+         return;
+      }
+      int nReplaced = count;
+      int nFiles = edits.size();
+      clear(true);
+      win.enableSearch(false);
+      win.displayStatus("Replacing ...");
+      Thread t = new Thread(() -> {
+         IOException err = null;
+         try {
+            FileEdit.writeAll(fileEdits);
+         }
+         catch (IOException e) {
+            err = e;
+         }
+         IOException error = err;
+         EventQueue.invokeLater(() ->
+               replaceDone(docEdits, error, nReplaced, nFiles));
+      });
+      t.start();
+   }
+
+   private void replaceDone(Map<FileEdit, EditableDocument> docEdits,
+         IOException error, int count, int nFiles) {
+
+      win.enableSearch(true);
+      if (error != null) {
+         FileUtils.log(error);
+         win.displayStatus("Nothing was replaced in the open documents");
+         Dialogs.errorMessage(error.getMessage(), "Replace in project");
+         return;
+      }
+      //
+      // the documents remained editable while the files were written
+      List<File> changed = new ArrayList<>();
+      int nReplaced = count;
+      int nReplacedFiles = nFiles;
+      for (Map.Entry<FileEdit, EditableDocument> entry : docEdits.entrySet()) {
+         FileEdit e = entry.getKey();
+         EditableDocument doc = entry.getValue();
+         if (openDocument(e.file()) == doc && doc.text().equals(e.text())) {
+            doc.replace(e.start(), e.length(), e.replacedSection(), true);
+         }
+         else {
+            changed.add(e.file());
+            nReplaced -= e.count();
+            nReplacedFiles--;
+         }
+      }
+      String msg = "Replaced " + nReplaced + " matches in " + nReplacedFiles
+            + " files. Open documents were edited and are not saved";
+      if (!changed.isEmpty()) {
+         msg += ". Skipped " + changed.size() + " documents that were"
+               + " changed or closed: " + fileNames(changed);
+      }
+      win.displayStatus(msg);
+   }
+
+   private static String fileNames(List<File> files) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < files.size() && i < 5; i++) {
+         if (i > 0) {
+            sb.append(", ");
+         }
+         sb.append(files.get(i).getName());
+      }
+      if (files.size() > 5) {
+         sb.append(", ...");
+      }
+      return sb.toString();
+   }
+
+   private Map<File, String> documentTexts() {
+      Map<File, String> texts = new HashMap<>();
+      for (EditableDocument d : edtDoc) {
+         if (d != null && d.hasFile()) {
+            texts.put(normalizedFile(d.file()), d.text());
+         }
+      }
+      return texts;
+   }
+
+   private EditableDocument openDocument(File f) {
+      for (EditableDocument d : edtDoc) {
+         if (d != null && d.hasFile() && normalizedFile(d.file()).equals(f)) {
+            return d;
+         }
+      }
+      return null;
+   }
+
+   private static File normalizedFile(File f) {
+      return f.toPath().toAbsolutePath().normalize().toFile();
+   }
+}
@@ -14,6 +14,7 @@ import eg.projects.ProjectSelector;
 import eg.projects.ProjectTypes;
 import eg.document.EditableDocument;
 import eg.utils.Dialogs;
+import eg.utils.SystemParams;
 
 /**
  * The processing of coding projects and updating of project UI
@@ -26,6 +27,7 @@ public class Projects {
    private final ProjectSelector selector;
    private final ProcessStarter proc;
    private final EditableDocument[] edtDoc;
+   private final ProjectSearch projSearch;
    private final List<ProjectCommands> projCmnds = new ArrayList<>();
    private final ProjectActionsUpdate pau = new ProjectActionsUpdate();
 
@@ -38,14 +40,19 @@ public class Projects {
     * @param mw  the MainWin
     * @param fileTree  the FileTree
     * @param edtDoc  the array of EditableDocument
+    * @param projSearch  the ProjectSearch
     */
-   public Projects(MainWin mw, FileTree fileTree, EditableDocument[] edtDoc) {
+   public Projects(MainWin mw, FileTree fileTree, EditableDocument[] edtDoc,
+         ProjectSearch projSearch) {
+
       this.mw = mw;
       this.fileTree = fileTree;
       this.edtDoc = edtDoc;
+      this.projSearch = projSearch;
       Console cons = new Console(mw.consolePanel());
+      setConsoleLimits(cons);
       Runnable fileTreeUpdate = (fileTree::updateTree);
-      proc = new ProcessStarter(cons, fileTreeUpdate);
+      proc = new ProcessStarter(mw.consolePanel(), cons, fileTreeUpdate);
       TaskRunner runner = new TaskRunner(mw, cons, proc, fileTreeUpdate);
       selector = new ProjectSelector(runner);
       enableProjectCommands(false);
@@ -203,6 +210,16 @@ public class Projects {
       }
    }
 
+   /**
+    * Opens the window for the search of text in the files of the
+    * current project
+    */
+   public void openProjectSearch() {
+      if (currentProject != null) {
+         projSearch.openWindow();
+      }
+   }
+
    /**
     * The enabling of actions to compile, run and build a project
     */
@@ -301,6 +318,37 @@ public class Projects {
    //--private--/
    //
 
+   private void setConsoleLimits(Console cons) {
+      Prefs prefs = new Prefs();
+      int maxLines = Console.DEFAULT_MAX_LINES;
+      int maxChars = Console.DEFAULT_MAX_CHARS;
+      try {
+         int lines = Integer.parseInt(prefs.property(Prefs.CONSOLE_LINES_KEY));
+         if (lines > 0) {
+            maxLines = lines;
+         }
+      }
+      catch (NumberFormatException e) {
+         // keep the default limit
+      }
+      try {
+         int mb = Integer.parseInt(prefs.property(Prefs.CONSOLE_MEMORY_KEY));
+         if (mb > 0 && mb < 2048) {
+            maxChars = mb << 19;
+         }
+      }
+      catch (NumberFormatException e) {
+         // keep the default limit
+      }
+      cons.setLimits(maxLines, maxChars);
+      if (prefs.yesNoProperty(Prefs.CONSOLE_SPILL_KEY)
+            && SystemParams.existsEadgythDataDir()) {
+
+         cons.setSpillFile(new File(SystemParams.EADGYTH_DATA_DIR
+               + File.separator + "console.log"), 64L << 20);
+      }
+   }
+
    private void openSettingsWindow(ProjectCommands toSet, String dir) {
       mw.busyFunction().execute(() -> toSet.openSettingsWindow(dir));
    }
@@ -365,6 +413,10 @@ public class Projects {
       changedDocumentUpdate();
       fileTree.setProjectTree(currentProject.projectDir());
       fileTree.setDeletableDir(currentProject.executableDir());
+      projSearch.setProject(currentProject.projectDir(),
+            currentProject.projectName(), currentProject.executableDir());
+
+      mw.enableProjectSearch(true);
    }
 
    private void enableProjectCommands(boolean enable) {
@@ -376,23 +428,38 @@ public class Projects {
 
    private boolean save() {
       StringBuilder missingFiles = new StringBuilder();
+      StringBuilder savedFiles = new StringBuilder();
+      boolean isAllSaved = true;
       for (EditableDocument d : edtDoc) {
          if (d != null && d.hasFile()) {
             boolean isProjFile = currentProject.isInProject(d.fileParent());
             if (isProjFile) {
-                if (d.file().exists()) {
-                   d.saveFile();
-                } else {
+                if (!d.file().exists()) {
                    missingFiles.append("\n").append(d.filename());
                 }
+                else if (!d.isSaved()) {
+                   if (d.saveFile()) {
+                      savedFiles.append(savedFiles.length() > 0 ? ", " : "")
+                            .append(d.filename());
+                   }
+                   else {
+                      isAllSaved = false;
+                   }
+                }
             }
          }
       }
+      if (savedFiles.length() > 0) {
+         mw.displayMessage("Saved: " + savedFiles);
+      }
+      else {
+         mw.displayMessage("");
+      }
       if (missingFiles.length() > 0) {
          missingFilesMsg(missingFiles.toString());
          return false;
       }
-      return true;
+      return isAllSaved;
    }
 
    private int replaceRes(ProjectTypes newProjType, ProjectTypes prevProjType) {
@@ -16,6 +16,8 @@ import java.nio.file.Files;
 //--Eadgyth--/
 import eg.document.EditableDocument;
 import eg.document.EditingStateReadable;
+import eg.document.UndoEditing;
+import eg.filesearch.FileMatch;
 import eg.ui.MainWin;
 import eg.ui.EditArea;
 import eg.ui.tabpane.ExtTabbedPane;
@@ -48,6 +50,7 @@ public class TabbedDocuments {
 
    private int iTab = -1;
    private Languages lang;
+   private long undoMemoryLimit;
 
    /**
     * @param mw  the reference to MainWin
@@ -69,6 +72,7 @@ public class TabbedDocuments {
       });
 
       lang = Languages.valueOf(prefs.property(Prefs.LANG_KEY));
+      setUndoMemoryLimit();
 
       edit = new Edit(true);
       mw.setEditActions(edit, this::changeLanguage);
@@ -76,7 +80,7 @@ public class TabbedDocuments {
       FileTree ft = new FileTree(mw.treePanel(), this::open);
       String projectRoot = prefs.property("ProjectRoot");
       ft.setProjectTree(projectRoot);
-      proj = new Projects(mw, ft, edtDoc);
+      proj = new Projects(mw, ft, edtDoc, new ProjectSearch(edtDoc, this::open));
       mw.setProjectActions(proj);
 
       String recentDir = prefs.property(Prefs.RECENT_DIR_KEY);
@@ -248,6 +252,39 @@ public class TabbedDocuments {
       mw.busyFunction().execute(r);
    }
 
+   private void open(FileMatch m) {
+      File f = m.file().getAbsoluteFile();
+      for (int i = 0; i < nTabs(); i++) {
+         if (edtDoc[i].hasFile() && edtDoc[i].file().equals(f)) {
+            tabPane.setSelectedIndex(i);
+            select(edtDoc[i], m);
+            return;
+         }
+      }
+      if (!exists(f) || isMaxTabNumber()) {
+         return;
+      }
+      Runnable r = () -> {
+         if (isOnlyUnnamedBlank()) {
+            removeTab();
+         }
+         if (isTabOpenable()) {
+            createDocument(f);
+            select(edtDoc[nTabs() - 1], m);
+         }
+      };
+      mw.busyFunction().execute(r);
+   }
+
+   private void select(EditableDocument doc, FileMatch m) {
+      //
+      // the text may have been changed since the search
+      int length = doc.textLength();
+      doc.setFocused();
+      doc.textArea().select(Math.min(m.start(), length),
+            Math.min(m.end(), length));
+   }
+
    private static boolean exists(File f) {
       if (f.exists()) {
          return true;
@@ -302,6 +339,7 @@ public class TabbedDocuments {
       format.createEditAreaAt(n);
       edtDoc[n] = new EditableDocument(editArea[n], lang);
       edtDoc[n].setEditingStateReadable(editState);
+      edtDoc[n].setUndoMemoryLimit(undoMemoryLimit);
       tabPane.addTab("unnamed", editArea[n].content(), closeAct());
    }
 
@@ -310,10 +348,24 @@ public class TabbedDocuments {
       format.createEditAreaAt(n);
       edtDoc[n] = new EditableDocument(editArea[n], f, lang);
       edtDoc[n].setEditingStateReadable(editState);
+      edtDoc[n].setUndoMemoryLimit(undoMemoryLimit);
       tabPane.addTab(edtDoc[n].filename(), editArea[n].content(), closeAct());
       proj.retrieve();
    }
 
+   private void setUndoMemoryLimit() {
+      undoMemoryLimit = UndoEditing.DEFAULT_MEMORY_LIMIT;
+      try {
+         int mb = Integer.parseInt(prefs.property(Prefs.UNDO_MEMORY_KEY));
+         if (mb > 0) {
+            undoMemoryLimit = (long) mb << 20;
+         }
+      }
+      catch (NumberFormatException e) {
+         // keep the default limit
+      }
+   }
+
    private FunctionalAction closeAct() {
       ActionListener close = e -> {
          iTab = tabPane.iTabMouseOver();
@@ -548,6 +600,11 @@ public class TabbedDocuments {
          mw.enableUndoRedo(canUndo, canRedo);
       }
 
+      @Override
+      public void updateUndoMemoryUsage(long bytes) {
+         mw.displayUndoMemoryUsage(bytes);
+      }
+
       @Override
       public void updateSelectionState(boolean isSelection) {
          mw.enableCutCopy(isSelection);
@@ -61,6 +61,7 @@ public class TaskRunner {
          return;
       }
       mw.showConsole();
+      cons.select();
       cons.setText("");
       if (initialMsg != null && !initialMsg.isEmpty()) {
          cons.appendTextBr(initialMsg);
@@ -0,0 +1,126 @@
+package eg.console;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//--Eadgyth--/
+import eg.utils.SystemParams;
+
+/**
+ * Static methods to split a command line into the command and its
+ * arguments and to quote arguments.
+ * <p>
+ * Arguments are separated by white space. Text in single quotes is
+ * taken literally and text in double quotes may contain escaped
+ * double quotes. Outside of quotes a backslash escapes the following
+ * character, except on Windows where a backslash only escapes a
+ * double quote so that it can be used in paths.
+ */
+public final class CommandLine {
+
+   /**
+    * Returns the tokens of the specified command line
+    *
+    * @param cmd  the command line
+    * @return  the list of tokens; an empty list if the command line
+    * contains only white space
+    * @throws IllegalArgumentException  if a quote is not closed
+    */
+   public static List<String> tokens(String cmd) {
+      List<String> tokens = new ArrayList<>();
+      StringBuilder sb = new StringBuilder();
+      boolean isToken = false;
+      char quote = 0;
+      int n = cmd.length();
+      for (int i = 0; i < n; i++) {
+         char c = cmd.charAt(i);
+         char next = i + 1 < n ? cmd.charAt(i + 1) : 0;
+         if (quote == '\'') {
+            if (c == '\'') {
+               quote = 0;
+            }
+            else {
+               sb.append(c);
+            }
+         }
+         else if (quote == '"') {
+            if (c == '"') {
+               quote = 0;
+            }
+            else if (c == '\\' && (next == '"'
+                  || (next == '\\' && !SystemParams.IS_WINDOWS))) {
+
+               sb.append(next);
+               i++;
+            }
+            else {
+               sb.append(c);
+            }
+         }
+         else if (Character.isWhitespace(c)) {
+            if (isToken) {
+               tokens.add(sb.toString());
+               sb.setLength(0);
+               isToken = false;
+            }
+         }
+         else {
+            isToken = true;
+            if (c == '"' || c == '\'') {
+               quote = c;
+            }
+            else if (c == '\\' && next != 0
+                  && (next == '"' || !SystemParams.IS_WINDOWS)) {
+
+               sb.append(next);
+               i++;
+            }
+            else {
+               sb.append(c);
+            }
+         }
+      }
+      if (quote != 0) {
+         throw new IllegalArgumentException(
+               "The quote " + quote + " is not closed in: " + cmd);
+      }
+      if (isToken) {
+         tokens.add(sb.toString());
+      }
+      return tokens;
+   }
+
+   /**
+    * Returns the specified argument in quotes if it is empty or
+    * contains white space, quotes or backslashes such that
+    * {@link #tokens} returns it unchanged
+    *
+    * @param arg  the argument
+    * @return  the argument, quoted if necessary
+    */
+   public static String quoted(String arg) {
+      boolean isQuoted = arg.isEmpty();
+      for (int i = 0; i < arg.length() && !isQuoted; i++) {
+         char c = arg.charAt(i);
+         isQuoted = Character.isWhitespace(c) || c == '"' || c == '\''
+               || c == '\\';
+      }
+      if (!isQuoted) {
+         return arg;
+      }
+      if (arg.indexOf('\'') == -1) {
+         return "'" + arg + "'";
+      }
+      StringBuilder sb = new StringBuilder("\"");
+      for (int i = 0; i < arg.length(); i++) {
+         char c = arg.charAt(i);
+         if (c == '"' || (c == '\\' && !SystemParams.IS_WINDOWS)) {
+            sb.append('\\');
+         }
+         sb.append(c);
+      }
+      return sb.append('"').toString();
+   }
+
+   private CommandLine() {}
+}
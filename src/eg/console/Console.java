@@ -1,56 +1,140 @@
 package eg.console;
 
-import java.awt.event.ActionListener;
+import java.io.File;
+
 import java.awt.event.KeyListener;
 
-import javax.swing.JButton;
-import javax.swing.JTextArea;
+import java.util.function.Consumer;
+
+import javax.swing.JTextPane;
 
 import javax.swing.event.CaretListener;
 
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+
 //--Eadgyth--/
+import eg.BackgroundTheme;
+import eg.FunctionalAction;
 import eg.ui.ConsolePanel;
 import eg.ui.IconFiles;
 import eg.utils.Dialogs;
 
 /**
- * Represents the console with a text area and buttons for adding
- * actions to run commands.
+ * Represents a console with a text area in a tab of the
+ * {@link ConsolePanel}.
  * <p>
  * Class can have an unlocked, an unlocked active or a locked state.
  * Setting the 'unlocked' flag is required to use this methods that
  * access the text area. Otherwise these methods throw an exception.
  * Active means that the text area is additionally editable and
- * focusable and also that this button for stopping a process is
- * enabled.
+ * focusable and also that the button for stopping a process is
+ * enabled while the tab of this console is selected.
+ * <p>
+ * The text is limited to a maximum number of lines and characters.
+ * If the text exceeds either limit by more than a tenth, lines are
+ * removed from the beginning until the text is within the limits
+ * again. The removed text may be appended to a file.
+ * <p>
+ * Error output is shown in a different color than normal output.
  */
 public class Console {
 
-   private final JTextArea area = new JTextArea();
-   private final JButton enterCmdBt = new JButton("Cmd...");
-   private final JButton runBt = new JButton(IconFiles.RUN_CMD_ICON);
-   private final JButton stopBt = new JButton(IconFiles.STOP_PROCESS_ICON);
+   /**
+    * The default maximum number of lines */
+   public static final int DEFAULT_MAX_LINES = 20000;
+   /**
+    * The default maximum number of characters */
+   public static final int DEFAULT_MAX_CHARS = 4 << 20;
+
+   private static final SimpleAttributeSet NORMAL_SET
+         = new SimpleAttributeSet();
+   private static final SimpleAttributeSet ERROR_SET
+         = new SimpleAttributeSet();
+
+   static {
+      StyleConstants.setForeground(ERROR_SET,
+            BackgroundTheme.givenTheme().redText());
+   }
+
+   private final JTextPane area = new JTextPane();
+   private final ConsolePanel consPnl;
 
    private boolean unlocked = false;
+   private int fixedLength = 0;
+   private int maxLines = DEFAULT_MAX_LINES;
+   private int maxChars = DEFAULT_MAX_CHARS;
+   private SpillFile spill = null;
+   private boolean isTrimming = false;
 
    /**
+    * Creates the <code>Console</code> in the first tab, which cannot
+    * be closed
+    *
     * @param consPnl  the reference to ConsolePanel which is contained
-    * in the main window and which the text area and the buttons are
-    * added to
+    * in the main window and which the text area is added to
     */
    public Console(ConsolePanel consPnl) {
-      JButton[] bts = new JButton[] {
-         enterCmdBt, runBt, stopBt
-      };
-      String[] tooltips = new String[] {
-         "Enter and run a system command",
-         "Run a previous system command",
-         "Forcibly quit the current process"
-      };
-      consPnl.initContent(area, bts, tooltips);
-      runBt.setEnabled(false);
-      enterCmdBt.setEnabled(false);
-      stopBt.setEnabled(false);
+      this.consPnl = consPnl;
+      consPnl.addArea("Console", area, null);
+      ((AbstractDocument) area.getDocument()).setDocumentFilter(fixedText);
+   }
+
+   /**
+    * Creates a <code>Console</code> in a new tab which can be closed
+    * and which takes the limits and the spill file of another
+    * <code>Console</code>
+    *
+    * @param consPnl  the reference to ConsolePanel
+    * @param title  the title of the tab
+    * @param settings  the Console whose limits and spill file are
+    * taken
+    * @param close  the Consumer that is given this Console when
+    * the tab is closed
+    */
+   Console(ConsolePanel consPnl, String title, Console settings,
+         Consumer<Console> close) {
+
+      this.consPnl = consPnl;
+      maxLines = settings.maxLines;
+      maxChars = settings.maxChars;
+      spill = settings.spill;
+      consPnl.addArea(title, area, new FunctionalAction("",
+            IconFiles.CLOSE_ICON, e -> close.accept(this)));
+
+      ((AbstractDocument) area.getDocument()).setDocumentFilter(fixedText);
+   }
+
+   /**
+    * Sets the maximum number of lines and characters
+    *
+    * @param maxLines  the maximum number of lines
+    * @param maxChars  the maximum number of characters
+    */
+   public void setLimits(int maxLines, int maxChars) {
+      if (maxLines <= 0 || maxChars <= 0) {
+         throw new IllegalArgumentException("A limit is not positive");
+      }
+      this.maxLines = maxLines;
+      this.maxChars = maxChars;
+   }
+
+   /**
+    * Sets the file to which text that is removed because the text
+    * exceeds a limit is appended
+    *
+    * @param f  the file; null to discard removed text
+    * @param maxSize  the maximum size of the file in bytes after
+    * which the file is renamed by adding the extension '.1' and a new
+    * file is started
+    */
+   public void setSpillFile(File f, long maxSize) {
+      spill = f != null ? new SpillFile(f, maxSize) : null;
    }
 
    /**
@@ -124,13 +208,17 @@ public class Console {
    }
 
    /**
-    * Sets the specified text
+    * Sets the specified text. The length of the fixed text is reset
+    * to zero
     *
     * @param text  the text
+    * @see #setFixedLength
     */
    public void setText(String text) {
       checkWritePermission();
+      fixedLength = 0;
       area.setText(text);
+      trim();
    }
 
    /**
@@ -140,7 +228,18 @@ public class Console {
     */
    public void appendText(String text) {
       checkWritePermission();
-      area.append(text);
+      append(text, NORMAL_SET);
+   }
+
+   /**
+    * Appends the specified text which is shown in the color for
+    * error output
+    *
+    * @param text  the text
+    */
+   public void appendError(String text) {
+      checkWritePermission();
+      append(text, ERROR_SET);
    }
 
    /**
@@ -153,7 +252,7 @@ public class Console {
     */
    public void appendTextBr(String text) {
       checkWritePermission();
-      area.append(">> " + text + "\n");
+      append(">> " + text + "\n", NORMAL_SET);
    }
 
    /**
@@ -167,64 +266,117 @@ public class Console {
    }
 
    /**
-    * Enables actions to enter a new command
+    * Gets the text from the specified position to the end
+    *
+    * @param pos  the position
+    * @return  the text
     */
-   public void enableEnterCmdBt() {
-      enterCmdBt.setEnabled(true);
+   public String getText(int pos) {
+      checkWritePermission();
+      try {
+         return area.getText(pos, textLength() - pos);
+      }
+      catch (BadLocationException e) {
+         throw new IllegalArgumentException(e);
+      }
    }
 
    /**
-    * Enables or disables actions to run a command
+    * Gets the length of the current text
     *
-    * @param b  true to enable, fasle to disable
+    * @return  the length
     */
-   public void enableRunBt(boolean b) {
-      runBt.setEnabled(b);
+   public int textLength() {
+      return area.getDocument().getLength();
    }
 
    /**
-    * Adds a <code>KeyListener</code> to this text area
+    * Gets the length of the text at the beginning which cannot be
+    * changed in the text area
     *
-    * @param keyListener  the <code>KeyListener</code>
+    * @return  the length
+    * @see #setFixedLength
     */
-   public void addKeyListener(KeyListener keyListener) {
-      area.addKeyListener(keyListener);
+   public int fixedLength() {
+      return fixedLength;
    }
 
    /**
-    * Adds a <code>CaretListener</code> to this text area
+    * Sets the length of the text at the beginning which cannot be
+    * changed in the text area. Text is still appended at the end and
+    * the fixed text is shortened if text is removed because it
+    * exceeds a limit
     *
-    * @param caretListener  the <code>CaretListener</code>
+    * @param length  the length
     */
-   public void addCaretListener(CaretListener caretListener) {
-      area.addCaretListener(caretListener);
+   public void setFixedLength(int length) {
+      checkWritePermission();
+      if (length < 0 || length > textLength()) {
+         throw new IllegalArgumentException(
+               "The length is out of range: " + length);
+      }
+      fixedLength = length;
    }
 
    /**
-    * Sets the listener for actions to enter and run a new command
+    * Shows the specified information in the toolbar while the tab of
+    * this console is selected
     *
-    * @param al  the {@code ActionListener}
+    * @param info  the information; the empty string to show
+    * nothing
     */
-   public void setEnterCmdAct(ActionListener al) {
-      enterCmdBt.addActionListener(al);
+   public void displayInfo(String info) {
+      consPnl.setInfo(area, info);
    }
 
    /**
-    * Sets the listener for actions to run a previous command
+    * Sets the title of the tab of this console
     *
-    * @param al  the {@code ActionListener}
+    * @param title  the title
+    */
+   public void setTitle(String title) {
+      consPnl.setTitle(area, title);
+   }
+
+   /**
+    * Selects the tab of this console
+    */
+   public void select() {
+      consPnl.selectArea(area);
+   }
+
+   /**
+    * Returns if the tab of this console is selected
+    *
+    * @return  true if selected, false otherwise
+    */
+   public boolean isSelected() {
+      return consPnl.selectedArea() == area;
+   }
+
+   /**
+    * Removes the tab of this console
     */
-   public void setRunAct(ActionListener al) {
-      runBt.addActionListener(al);
+   public void remove() {
+      consPnl.removeArea(area);
    }
 
    /**
-    * Sets the listener for actions to stop a process
+    * Adds a <code>KeyListener</code> to this text area
     *
-    * @param al  the {@code ActionListener}
+    * @param keyListener  the <code>KeyListener</code>
     */
-   public void setStopAct(ActionListener al) {
-      stopBt.addActionListener(al);
+   public void addKeyListener(KeyListener keyListener) {
+      area.addKeyListener(keyListener);
+   }
+
+   /**
+    * Adds a <code>CaretListener</code> to this text area
+    *
+    * @param caretListener  the <code>CaretListener</code>
+    */
+   public void addCaretListener(CaretListener caretListener) {
+      area.addCaretListener(caretListener);
    }
 
    //
@@ -245,9 +397,91 @@ public class Console {
       }
    }
 
+   private final DocumentFilter fixedText = new DocumentFilter() {
+
+      @Override
+      public void insertString(FilterBypass fb, int offset, String text,
+            AttributeSet attr) throws BadLocationException {
+
+         if (isTrimming || offset >= fixedLength) {
+            super.insertString(fb, offset, text, attr);
+         }
+      }
+
+      @Override
+      public void remove(FilterBypass fb, int offset, int length)
+            throws BadLocationException {
+
+         if (isTrimming || offset >= fixedLength) {
+            super.remove(fb, offset, length);
+         }
+      }
+
+      @Override
+      public void replace(FilterBypass fb, int offset, int length,
+            String text, AttributeSet attrs) throws BadLocationException {
+
+         if (isTrimming || offset >= fixedLength) {
+            super.replace(fb, offset, length, text, attrs);
+         }
+      }
+   };
+
+   private void append(String text, SimpleAttributeSet set) {
+      try {
+         area.getDocument().insertString(textLength(), text, set);
+      }
+      catch (BadLocationException e) {
+         throw new IllegalStateException(e);
+      }
+      if (set != NORMAL_SET) {
+         //
+         // text typed in at the end does not take the attributes of
+         // the appended text
+         area.setCharacterAttributes(NORMAL_SET, true);
+      }
+      trim();
+   }
+
+   private void trim() {
+      Element root = area.getDocument().getDefaultRootElement();
+      int nLines = root.getElementCount();
+      int length = textLength();
+      if (nLines <= maxLines + maxLines / 10
+            && length <= maxChars + maxChars / 10) {
+
+         return;
+      }
+      int end = 0;
+      if (nLines > maxLines) {
+         end = root.getElement(nLines - maxLines).getStartOffset();
+      }
+      if (length - end > maxChars) {
+         end = length - maxChars;
+         Element line = root.getElement(root.getElementIndex(end));
+         if (line.getStartOffset() < end && line.getEndOffset() < length) {
+            end = line.getEndOffset();
+         }
+      }
+      isTrimming = true;
+      try {
+         if (spill != null) {
+            spill.append(area.getText(0, end));
+         }
+         area.getDocument().remove(0, end);
+      }
+      catch (BadLocationException e) {
+         throw new IllegalStateException(e);
+      }
+      finally {
+         isTrimming = false;
+      }
+      fixedLength = Math.max(0, fixedLength - end);
+   }
+
    private void setActive(boolean b) {
       area.setEditable(b);
       area.setFocusable(b);
-      stopBt.setEnabled(b);
+      consPnl.setStoppable(area, b);
    }
 }
@@ -0,0 +1,113 @@
+package eg.console;
+
+import java.io.File;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command together with environment variables that are set for the
+ * processes started in a working directory.
+ * <p>
+ * The environment is given as text in the form
+ * <code>NAME=value NAME=value</code>, where values that contain white
+ * space are quoted as in a command line (see {@link CommandLine}).
+ * For example, <code>JAVA_TOOL_OPTIONS="-Xmx2g -XX:+UseG1GC"</code>
+ * sets options for Java programs.
+ */
+public final class LaunchProfile {
+
+   /**
+    * The profile without a command and environment variables */
+   public static final LaunchProfile EMPTY
+         = new LaunchProfile("", Collections.<String, String>emptyMap());
+
+   private final String cmd;
+   private final Map<String, String> env;
+
+   /**
+    * @param cmd  the command; may be empty
+    * @param env  the map of the names and values of environment
+    * variables
+    */
+   public LaunchProfile(String cmd, Map<String, String> env) {
+      this.cmd = cmd;
+      this.env = Collections.unmodifiableMap(new LinkedHashMap<>(env));
+   }
+
+   /**
+    * Returns the command
+    *
+    * @return  the command
+    */
+   public String command() {
+      return cmd;
+   }
+
+   /**
+    * Returns the environment variables
+    *
+    * @return  the unmodifiable map of the names and values
+    */
+   public Map<String, String> environment() {
+      return env;
+   }
+
+   /**
+    * Returns the environment variables as text
+    *
+    * @return  the text in the form <code>NAME=value NAME=value</code>
+    */
+   public String environmentText() {
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<String, String> e : env.entrySet()) {
+         if (sb.length() > 0) {
+            sb.append(" ");
+         }
+         sb.append(e.getKey()).append("=")
+               .append(CommandLine.quoted(e.getValue()));
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Creates a <code>ProcessBuilder</code> for the specified tokens of
+    * a command which has the environment variables of this profile
+    * set in addition to the inherited variables
+    *
+    * @param cmdList  the list of tokens of the command
+    * @param dir  the working directory
+    * @return  the ProcessBuilder
+    */
+   public ProcessBuilder processBuilder(List<String> cmdList, File dir) {
+      ProcessBuilder pb = new ProcessBuilder(cmdList);
+      pb.directory(dir);
+      pb.environment().putAll(env);
+      return pb;
+   }
+
+   /**
+    * Parses environment variables from the specified text
+    *
+    * @param text  the text in the form <code>NAME=value NAME=value</code>
+    * @return  the map of the names and values in the order of the
+    * text
+    * @throws IllegalArgumentException  if the text contains a token
+    * that is not of the form <code>NAME=value</code> or a quote is not
+    * closed
+    */
+   public static Map<String, String> parseEnvironment(String text) {
+      Map<String, String> env = new LinkedHashMap<>();
+      for (String s : CommandLine.tokens(text)) {
+         int i = s.indexOf('=');
+         if (i <= 0) {
+            throw new IllegalArgumentException(
+                  "Not of the form NAME=value: " + s);
+         }
+         env.put(s.substring(0, i), s.substring(i + 1));
+      }
+      return env;
+   }
+}
@@ -0,0 +1,234 @@
+package eg.console;
+
+import java.awt.EventQueue;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+//--Eadgyth--/
+import eg.utils.FileUtils;
+
+/**
+ * The output and error output of a process which is shown in the
+ * console.
+ * <p>
+ * Each stream is read in a separate task of an executor. The read
+ * chunks are put in one queue which is drained in the event dispatch
+ * thread, where the chunks of each stream that follow one another are
+ * appended to the console at once. Reading pauses while the queue
+ * holds more than a maximum number of chars. The numbers of bytes and
+ * lines read from each stream are shown in the toolbar of the
+ * console.
+ */
+final class ProcessOutput {
+
+   private static final int MAX_QUEUED_CHARS = 1 << 22;
+
+   private final Console cons;
+   private final Runnable drained;
+   private final BooleanSupplier isClosed;
+   private final Queue<Chunk> queue = new ConcurrentLinkedQueue<>();
+   private final AtomicLong queuedChars = new AtomicLong();
+   private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+   private final CountDownLatch pumpsEnded = new CountDownLatch(2);
+   private final Pump outPump;
+   private final Pump errPump;
+
+   /**
+    * @param process  the process
+    * @param cons  the Console
+    * @param drained  the Runnable that is run after output was
+    * appended to the console
+    * @param isClosed  the BooleanSupplier that tells if the console
+    * was closed. The output is then discarded
+    */
+   ProcessOutput(Process process, Console cons, Runnable drained,
+         BooleanSupplier isClosed) {
+
+      this.cons = cons;
+      this.drained = drained;
+      this.isClosed = isClosed;
+      outPump = new Pump(process.getInputStream(), false);
+      errPump = new Pump(process.getErrorStream(), true);
+   }
+
+   /**
+    * Starts reading the streams
+    *
+    * @param executor  the Executor which runs the reading tasks. Each
+    * task blocks while the stream is open
+    */
+   void start(Executor executor) {
+      executor.execute(outPump::read);
+      executor.execute(errPump::read);
+   }
+
+   /**
+    * Waits until both streams are read to their end
+    *
+    * @throws InterruptedException  if interrupted while waiting
+    */
+   void await() throws InterruptedException {
+      pumpsEnded.await();
+   }
+
+   /**
+    * Appends the queued output to the console. Must be called in the
+    * event dispatch thread
+    */
+   void drain() {
+      isDrainScheduled.set(false);
+      if (isClosed.getAsBoolean()) {
+         discard();
+         return;
+      }
+      StringBuilder sb = new StringBuilder();
+      boolean isError = false;
+      Chunk c;
+      while ((c = queue.poll()) != null) {
+         queuedChars.addAndGet(-c.text.length());
+         if (sb.length() > 0 && c.isError != isError) {
+            append(sb, isError);
+         }
+         isError = c.isError;
+         sb.append(c.text);
+      }
+      if (sb.length() > 0) {
+         append(sb, isError);
+         drained.run();
+      }
+      cons.displayInfo(counts());
+   }
+
+   //
+   //--private--/
+   //
+
+   private void discard() {
+      Chunk c;
+      while ((c = queue.poll()) != null) {
+         queuedChars.addAndGet(-c.text.length());
+      }
+   }
+
+   private String counts() {
+      return "Output: " + outPump.counts() + "  Errors: " + errPump.counts();
+   }
+
+   private void append(StringBuilder sb, boolean isError) {
+      if (isError) {
+         cons.appendError(sb.toString());
+      }
+      else {
+         cons.appendText(sb.toString());
+      }
+      sb.setLength(0);
+   }
+
+   private void offer(Chunk c) {
+      queue.offer(c);
+      queuedChars.addAndGet(c.text.length());
+      if (isDrainScheduled.compareAndSet(false, true)) {
+         EventQueue.invokeLater(this::drain);
+      }
+   }
+
+   private final class Pump {
+
+      private final AtomicLong nBytes = new AtomicLong();
+      private final AtomicLong nLines = new AtomicLong();
+      private final InputStreamReader reader;
+      private final boolean isError;
+
+      Pump(InputStream is, boolean isError) {
+         reader = new InputStreamReader(new FilterInputStream(is) {
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+               int n = super.read(b, off, len);
+               if (n > 0) {
+                  nBytes.addAndGet(n);
+               }
+               return n;
+            }
+         });
+         this.isError = isError;
+      }
+
+      String counts() {
+         return byteCount(nBytes.get()) + ", " + nLines.get() + " lines";
+      }
+
+      void read() {
+         char[] buf = new char[8192];
+         try {
+            int n;
+            while ((n = reader.read(buf)) != -1) {
+               int lines = 0;
+               for (int i = 0; i < n; i++) {
+                  if (buf[i] == '\n') {
+                     lines++;
+                  }
+               }
+               nLines.addAndGet(lines);
+               while (queuedChars.get() > MAX_QUEUED_CHARS) {
+                  LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+               }
+               offer(new Chunk(new String(buf, 0, n), isError));
+            }
+         }
+         catch (IOException e) {
+            //
+            // the stream is closed when the process of a closed console
+            // is destroyed
+            if (!isClosed.getAsBoolean()) {
+               FileUtils.log(e);
+            }
+         }
+         finally {
+            try {
+               reader.close();
+            }
+            catch (IOException e) {
+               FileUtils.log(e);
+            }
+            pumpsEnded.countDown();
+         }
+      }
+   }
+
+   private static String byteCount(long n) {
+      if (n < 1024) {
+         return n + " B";
+      }
+      else if (n < 1024 * 1024) {
+         return String.format("%.1f KB", n / 1024.0);
+      }
+      else {
+         return String.format("%.1f MB", n / (1024.0 * 1024));
+      }
+   }
+
+   private static final class Chunk {
+
+      final String text;
+      final boolean isError;
+
+      Chunk(String text, boolean isError) {
+         this.text = text;
+         this.isError = isError;
+      }
+   }
+}
@@ -1,65 +1,84 @@
 package eg.console;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
 import java.io.File;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import java.awt.EventQueue;
 
 import java.awt.event.KeyEvent;
-import java.awt.event.KeyListener;
 import java.awt.event.KeyAdapter;
 
-import javax.swing.SwingWorker;
-
-import javax.swing.event.CaretListener;
 import javax.swing.event.CaretEvent;
 
 //--Eadgyth--/
+import eg.ui.ConsolePanel;
 import eg.utils.Dialogs;
-import eg.utils.FileUtils;
 
 /**
- * The starting of external system processes
+ * The starting of external system processes.
+ * <p>
+ * Processes run concurrently, each in a console in a separate tab.
+ * A process is started in the console of a previous process that ran
+ * the same command and has ended or else in a new console. The threads
+ * that wait for processes and read their output are taken from a
+ * shared pool.
+ * <p>
+ * Commands are split into arguments like command lines (see
+ * {@link CommandLine}). A {@link LaunchProfile} is kept for each
+ * working directory. Its command is run by the action to run a
+ * previous command and its environment variables are set for all
+ * processes that are started in the working directory.
  */
 public class ProcessStarter {
 
+   /**
+    * The maximum number of processes that run at the same time */
+   public static final int MAX_PROCESSES = 8;
+
+   private final ConsolePanel consPnl;
    private final Console cons;
    private final Runnable fileTreeUpdate;
    /*
-    * Associates working directories with commands entered in the
+    * Associates working directories with the profiles entered in the
     * dialog */
-   private final HashMap<String, String> cmdMap = new HashMap<>();
+   private final Map<String, LaunchProfile> profiles = new HashMap<>();
+   private final List<ProcessRun> runs = new ArrayList<>();
+   private final ExecutorService executor = Executors.newCachedThreadPool(
+         r -> {
+            Thread t = new Thread(r, "Process");
+            t.setDaemon(true);
+            return t;
+         });
 
    private String workingDir;
    private File fWorkingDir;
    private String workingDirName;
-   private String previousCmd;
-   private String consoleText = "";
-   private boolean isAborted = false;
-   private int exitVal;
-   private Process process;
-   private PrintWriter out;
+   private LaunchProfile profile = LaunchProfile.EMPTY;
 
    /**
-    * @param cons  the reference to Console
+    * @param consPnl  the reference to ConsolePanel to which the
+    * consoles for processes are added
+    * @param cons  the reference to the Console in the first tab whose
+    * limits and spill file the consoles for processes take
     * @param fileTreeUpdate  the updating of the file tree
     */
-   public ProcessStarter(Console cons, Runnable fileTreeUpdate) {
+   public ProcessStarter(ConsolePanel consPnl, Console cons,
+         Runnable fileTreeUpdate) {
+
+      this.consPnl = consPnl;
       this.cons = cons;
       this.fileTreeUpdate = fileTreeUpdate;
-      cons.setEnterCmdAct(e -> startNewCmd());
-      cons.setRunAct(e -> startPreviousCmd());
-      cons.setStopAct(e -> endProcess());
-      cons.addKeyListener(sendOutput);
-      cons.addCaretListener(caretCorrection);
+      consPnl.setEnterCmdAct(e -> startNewCmd());
+      consPnl.setRunAct(e -> startPreviousCmd());
+      consPnl.setStopAct(e -> endProcess());
    }
 
    /**
@@ -71,65 +90,59 @@ public class ProcessStarter {
       this.workingDir = workingDir;
       fWorkingDir = new File(workingDir);
       workingDirName = fWorkingDir.getName();
-      cons.enableEnterCmdBt();
-      if (cmdMap.containsKey(workingDir)) {
-         previousCmd = cmdMap.get(workingDir);
+      consPnl.enableEnterCmdBt();
+      if (profiles.containsKey(workingDir)) {
+         profile = profiles.get(workingDir);
       }
       else {
-         previousCmd = "";
+         profile = LaunchProfile.EMPTY;
       }
-      cons.enableRunBt(previousCmd.length() > 0);
+      consPnl.enableRunBt(!profile.command().isEmpty());
    }
 
    /**
     * Runs the specified system command in this working
     * directory.
-    * {@link Console} is used to show output/error from the
-    * started process and to send input to it. The file tree
-    * is updated after the process has ended. If it is tried
-    * to start a process while another task uses the console a
-    * warning dialog is shown and the process is not started.
+    * A {@link Console} in a separate tab is used to show output/error
+    * from the started process and to send input to it. The file tree
+    * is updated after the process has ended. If the maximum number of
+    * processes is running a warning dialog is shown and the process
+    * is not started.
     *
     * @param cmd  the start command in which arguments are
-    * separated by spaces
+    * separated by white space and may be quoted
     */
    public void startProcess(String cmd) {
-      isAborted = false;
-      if (!cons.setUnlockedAndActive()) {
+      List<String> cmdList;
+      try {
+         cmdList = CommandLine.tokens(cmd);
+      }
+      catch (IllegalArgumentException e) {
+         Dialogs.errorMessage(e.getMessage(), "Run");
          return;
       }
-      cons.enableRunBt(false);
-      cons.focus();
-      cons.setText("");
-      cons.appendTextBr("Run:");
-      consoleText = cons.getText();
-      new Thread(() -> {
-         try {
-            List<String> cmdList = Arrays.asList(cmd.split(" "));
-            ProcessBuilder pb
-                  = new ProcessBuilder(cmdList).redirectErrorStream(true);
-
-            pb.directory(fWorkingDir);
-            process = pb.start();
-            out = new PrintWriter(process.getOutputStream());
-            new CaptureInput().execute();
-            exitVal = process.waitFor();
-         }
-         catch (IOException | InterruptedException e) {
-            EventQueue.invokeLater(() -> {
-               cons.appendTextBr(cmdNotFoundMsg(cmd));
-               lockConsole();
-            });
-            Thread.currentThread().interrupt();
-         }
-         finally {
-            if (out != null) {
-               out.close();
-            }
-            EventQueue.invokeLater(() -> cons.keepActive(
-                  process != null && process.isAlive()));
+      if (cmdList.isEmpty()) {
+         return;
+      }
+      if (nRunning() >= MAX_PROCESSES) {
+         Dialogs.warnMessage(
+               "Not more than " + MAX_PROCESSES
+               + " processes can run at the same time.");
+
+         return;
+      }
+      ProcessRun run = null;
+      for (ProcessRun r : runs) {
+         if (!r.isRunning && r.cmd.equals(cmd)) {
+            run = r;
+            break;
          }
-      }).start();
+      }
+      if (run == null) {
+         run = new ProcessRun(cmd);
+         runs.add(run);
+      }
+      run.start(profile.processBuilder(cmdList, fWorkingDir));
    }
 
    //
@@ -137,73 +150,185 @@ public class ProcessStarter {
    //
 
    private void startNewCmd() {
-      String cmd = Dialogs.textFieldInput(enterCmdMsg(), "Run", previousCmd);
-      if (cmd != null) {
-         cmd = cmd.trim();
-         previousCmd = cmd;
-         cmdMap.put(workingDir, cmd);
-         if (!cmd.isEmpty()) {
-            startProcess(cmd);
-         } else {
-            cons.enableRunBt(false);
-         }
+      String[] input = Dialogs.textFieldsInput(enterCmdMsg(), "Run",
+            new String[] {
+               "Command:",
+               "Environment variables (e.g. JAVA_TOOL_OPTIONS=\"-Xmx2g\"):"
+            },
+            new String[] {
+               profile.command(), profile.environmentText()
+            });
+
+      if (input == null) {
+         return;
+      }
+      Map<String, String> env;
+      try {
+         env = LaunchProfile.parseEnvironment(input[1]);
+      }
+      catch (IllegalArgumentException e) {
+         Dialogs.errorMessage(e.getMessage(), "Run");
+         return;
+      }
+      String cmd = input[0].trim();
+      profile = new LaunchProfile(cmd, env);
+      profiles.put(workingDir, profile);
+      if (!cmd.isEmpty()) {
+         startProcess(cmd);
+      } else {
+         consPnl.enableRunBt(false);
       }
    }
 
    private void startPreviousCmd() {
-      startProcess(previousCmd);
+      startProcess(profile.command());
    }
 
    private void endProcess() {
-      if (process != null && process.isAlive()) {
-         new Thread(() -> {
-            process.destroy();
-            isAborted = true;
-         }).start();
+      for (ProcessRun r : runs) {
+         if (r.cons.isSelected()) {
+            r.end();
+            break;
+         }
       }
    }
 
-   private class CaptureInput extends SwingWorker<Void, String> {
-      private final InputStream is = process.getInputStream();
-      private final InputStreamReader isr = new InputStreamReader(is);
-      private final BufferedReader reader = new BufferedReader(isr);
-
-      @Override
-      protected Void doInBackground() {
-         try {
-            int cInt;
-            char c;
-            while ((cInt = reader.read()) != -1) {
-               c = (char) cInt;
-               String s = String.valueOf(c);
-               publish(s);
-            }
+   private void close(Console c) {
+      for (ProcessRun r : runs) {
+         if (r.cons == c) {
+            r.isClosed = true;
+            r.end();
+            r.cons.remove();
+            runs.remove(r);
+            break;
          }
-         catch (IOException e) {
-            FileUtils.log(e);
+      }
+   }
+
+   private int nRunning() {
+      int n = 0;
+      for (ProcessRun r : runs) {
+         if (r.isRunning) {
+            n++;
          }
-         finally {
+      }
+      return n;
+   }
+
+   private static String tabTitle(String cmd) {
+      return cmd.length() > 24 ? cmd.substring(0, 21) + "..." : cmd;
+   }
+
+   private String cmdNotFoundMsg(String cmd, File dir) {
+      return
+         "Failed to run "
+         + cmd
+         + " in the project directory "
+         + dir;
+   }
+
+   private String enterCmdMsg() {
+      return
+         "Enter a system command to run in the current"
+         + " project directory ("
+         + workingDirName
+         + ")";
+   }
+
+   private final class ProcessRun {
+
+      private final Console cons;
+      private final String cmd;
+
+      private boolean isRunning = false;
+      /*
+       * True if the tab of the console was closed. Output and state
+       * changes that arrive later are then ignored */
+      private volatile boolean isClosed = false;
+      private volatile boolean isAborted = false;
+      private volatile Process process;
+      private volatile PrintWriter out;
+      private int exitVal;
+
+      ProcessRun(String cmd) {
+         this.cmd = cmd;
+         cons = new Console(consPnl, tabTitle(cmd),
+               ProcessStarter.this.cons, ProcessStarter.this::close);
+
+         cons.addKeyListener(new KeyAdapter() {
+
+            @Override
+            public void keyPressed(KeyEvent e) {
+               sendOutput(e);
+            }
+         });
+         cons.addCaretListener(this::correctCaret);
+      }
+
+      void start(ProcessBuilder pb) {
+         isRunning = true;
+         isAborted = false;
+         process = null;
+         out = null;
+         cons.setUnlockedAndActive();
+         cons.select();
+         cons.focus();
+         cons.setText("");
+         cons.displayInfo("");
+         cons.setTitle(tabTitle(cmd));
+         cons.appendTextBr("Run:");
+         fixConsoleText();
+         executor.execute(() -> {
             try {
-               reader.close();
+               process = pb.start();
+               out = new PrintWriter(process.getOutputStream());
+               ProcessOutput output = new ProcessOutput(process, cons,
+                     this::fixConsoleText, () -> isClosed);
+
+               output.start(executor);
+               exitVal = process.waitFor();
+               output.await();
+               EventQueue.invokeLater(() -> ended(output));
             }
-            catch (IOException e) {
-               FileUtils.log(e);
+            catch (IOException | InterruptedException e) {
+               EventQueue.invokeLater(() -> {
+                  isRunning = false;
+                  if (!isClosed) {
+                     cons.appendTextBr(cmdNotFoundMsg(cmd, pb.directory()));
+                     cons.setLocked();
+                  }
+               });
+               Thread.currentThread().interrupt();
             }
-         }
-         return null;
+            finally {
+               if (out != null) {
+                  out.close();
+               }
+               EventQueue.invokeLater(() -> {
+                  if (!isClosed) {
+                     cons.keepActive(process != null && process.isAlive());
+                  }
+               });
+            }
+         });
       }
 
-      @Override
-      protected void process(List<String> s) {
-         for (String str : s) {
-            cons.appendText(str);
-            consoleText = cons.getText();
+      void end() {
+         Process p = process;
+         if (p != null && p.isAlive()) {
+            isAborted = true;
+            executor.execute(p::destroy);
          }
       }
 
-      @Override
-      protected void done() {
-    	if (exitVal == 0) {
+      private void ended(ProcessOutput output) {
+         isRunning = false;
+         if (isClosed) {
+            fileTreeUpdate.run();
+            return;
+         }
+         output.drain();
+         if (exitVal == 0) {
             cons.appendText("\n");
             cons.appendTextBr(
                   "Process ended normally (exit value = "
@@ -226,64 +351,32 @@ public class ProcessStarter {
                      + ")");
             }
          }
-         lockConsole();
+         cons.setTitle(tabTitle(cmd) + " [" + exitVal + "]");
+         cons.setLocked();
          fileTreeUpdate.run();
       }
-   }
 
-   private final KeyListener sendOutput = new KeyAdapter() {
-
-      @Override
-      public void keyPressed(KeyEvent e) {
-         int key = e.getKeyCode();
-         if (key == KeyEvent.VK_ENTER) {
-            String output = cons.getText().substring(consoleText.length());
+      private void sendOutput(KeyEvent e) {
+         if (e.getKeyCode() == KeyEvent.VK_ENTER && out != null) {
+            String output = cons.getText(cons.fixedLength());
             out.println(output);
             out.flush();
          }
       }
 
-      @Override
-      public void keyReleased(KeyEvent e) {
-         if (cons.getText().length() < consoleText.length()) {
-            cons.setText(consoleText);
-         }
-      }
-   };
-
-   private final CaretListener caretCorrection = new CaretListener() {
-
-      @Override
-      public void caretUpdate(CaretEvent e) {
-         if (process == null || !process.isAlive()) {
+      private void correctCaret(CaretEvent e) {
+         Process p = process;
+         if (p == null || !p.isAlive()) {
             return;
          }
-         if (e.getDot() < consoleText.length()
-               || e.getMark() < consoleText.length()) {
-
-            EventQueue.invokeLater(() -> cons.setCaret(cons.getText().length()));
+         int fixedLength = cons.fixedLength();
+         if (e.getDot() < fixedLength || e.getMark() < fixedLength) {
+            EventQueue.invokeLater(() -> cons.setCaret(cons.textLength()));
          }
       }
-   };
-
-   private void lockConsole() {
-      cons.setLocked();
-      cons.enableRunBt(!previousCmd.isEmpty());
-   }
-
-   private String cmdNotFoundMsg(String cmd) {
-      return
-         "Failed to run "
-         + cmd
-         + " in the current project directory "
-         + workingDir;
-   }
 
-   private String enterCmdMsg() {
-      return
-         "Enter a system command to run in the current"
-         + " project directory ("
-         + workingDirName
-         + ")";
+      private void fixConsoleText() {
+         cons.setFixedLength(cons.textLength());
+      }
    }
 }
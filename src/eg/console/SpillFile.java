@@ -0,0 +1,80 @@
+package eg.console;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//--Eadgyth--/
+import eg.utils.FileUtils;
+
+/**
+ * The file to which text that is removed from the console is
+ * appended.
+ * <p>
+ * The text is written in a background thread in the order in which
+ * it is passed. If the file exceeds its maximum size it is renamed
+ * by adding the extension '.1', which replaces a previous file with
+ * this name, and a new file is started.
+ */
+final class SpillFile {
+
+   private final File file;
+   private final File rolledFile;
+   private final long maxSize;
+   private final ExecutorService writer = Executors.newSingleThreadExecutor(
+         r -> {
+            Thread t = new Thread(r, "Console spill");
+            t.setDaemon(true);
+            return t;
+         });
+
+   /**
+    * @param file  the file
+    * @param maxSize  the maximum size of the file in bytes
+    */
+   SpillFile(File file, long maxSize) {
+      if (maxSize <= 0) {
+         throw new IllegalArgumentException(
+               "The maximum size is not positive: " + maxSize);
+      }
+      this.file = file;
+      rolledFile = new File(file.getPath() + ".1");
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Appends the specified text
+    *
+    * @param text  the text
+    */
+   void append(String text) {
+      writer.execute(() -> write(text));
+   }
+
+   //
+   //--private--/
+   //
+
+   private void write(String text) {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      try {
+         if (file.exists() && file.length() + bytes.length > maxSize) {
+            Files.move(file.toPath(), rolledFile.toPath(),
+                  StandardCopyOption.REPLACE_EXISTING);
+         }
+         try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(bytes);
+         }
+      }
+      catch (IOException e) {
+         FileUtils.log(e);
+      }
+   }
+}
@@ -0,0 +1,182 @@
+package eg.document;
+
+import java.awt.EventQueue;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JTextPane;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+//--Eadgyth--/
+import eg.utils.FileUtils;
+import eg.syntax.SyntaxHighlighter;
+import eg.syntax.SyntaxSearcher;
+import eg.document.styledtext.EditableText;
+import eg.document.styledtext.RecordedText;
+
+/**
+ * The syntax highlighting of the entire text outside the event
+ * dispatch thread.
+ * <p>
+ * A copy of the text is highlighted in a <code>SwingWorker</code>.
+ * The recorded attributes are set first in the section that is
+ * visible in the text area and then in the remaining text in
+ * batches. A new start or a change of the text cancels the
+ * highlighting that is in progress.
+ */
+class BackgroundHighlighting {
+
+   private static final int BATCH_LENGTH = 30000;
+   private static final int RESTART_DELAY = 250;
+
+   private final EditableText txt;
+   private final SyntaxHighlighter syntax;
+   private final Timer restartTimer;
+
+   private RecordedText rec = null;
+   private int generation = 0;
+
+   /**
+    * @param txt  the reference to EditableText
+    * @param syntax  the reference to SyntaxHighlighter
+    */
+   BackgroundHighlighting(EditableText txt, SyntaxHighlighter syntax) {
+      this.txt = txt;
+      this.syntax = syntax;
+      restartTimer = new Timer(RESTART_DELAY, e -> start());
+      restartTimer.setRepeats(false);
+   }
+
+   /**
+    * Returns if a highlighting is in progress or about to be
+    * restarted. The <code>SyntaxHighlighter</code> must then not be
+    * used to highlight sections of the text
+    *
+    * @return  true if in progress, false otherwise
+    */
+   boolean isActive() {
+      return rec != null || restartTimer.isRunning();
+   }
+
+   /**
+    * Starts highlighting the entire text and cancels a highlighting
+    * that is in progress
+    */
+   void start() {
+      cancel();
+      int gen = generation;
+      RecordedText r = new RecordedText(txt.text(), txt.attributes(),
+            EditableText.SET);
+
+      rec = r;
+      SyntaxSearcher s = syntax.createSearcher(r);
+      SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+
+         @Override
+         protected Void doInBackground() {
+            SyntaxHighlighter.highlight(s);
+            return null;
+         }
+
+         @Override
+         protected void done() {
+            if (gen != generation) {
+               return;
+            }
+            try {
+               get();
+               syntax.adoptSearcher(s);
+               applyVisibleFirst(r, gen);
+            }
+            catch (InterruptedException | ExecutionException e) {
+               rec = null;
+               FileUtils.log(e);
+            }
+         }
+      };
+      worker.execute();
+   }
+
+   /**
+    * Cancels a highlighting that is in progress and starts
+    * highlighting the entire text after a short delay. A repeated
+    * call within the delay restarts the delay.
+    */
+   void restart() {
+      cancel();
+      restartTimer.restart();
+   }
+
+   /**
+    * Cancels a highlighting that is in progress or about to be
+    * restarted
+    */
+   void cancel() {
+      restartTimer.stop();
+      if (rec != null) {
+         rec.cancel();
+         rec = null;
+      }
+      generation++;
+   }
+
+   //
+   //--private--/
+   //
+
+   private void applyVisibleFirst(RecordedText r, int gen) {
+      int length = r.text().length();
+      JTextPane area = txt.textArea();
+      Rectangle vis = area.getVisibleRect();
+      int visStart = 0;
+      int visEnd = Math.min(length, BATCH_LENGTH);
+      if (!vis.isEmpty()) {
+         visStart = Math.max(0, area.viewToModel(vis.getLocation()));
+         int end = area.viewToModel(
+               new Point(vis.x + vis.width, vis.y + vis.height));
+
+         visEnd = Math.max(visStart, Math.min(length, end + 1));
+      }
+      r.applyTo(txt, visStart, visEnd);
+      int[] ranges = {visEnd, length, 0, visStart};
+      EventQueue.invokeLater(new Batches(r, gen, ranges));
+   }
+
+   private class Batches implements Runnable {
+
+      private final RecordedText r;
+      private final int gen;
+      private final int[] ranges;
+      private int i = 0;
+      private int pos;
+
+      private Batches(RecordedText r, int gen, int[] ranges) {
+         this.r = r;
+         this.gen = gen;
+         this.ranges = ranges;
+         pos = ranges[0];
+      }
+
+      @Override
+      public void run() {
+         if (gen != generation) {
+            return;
+         }
+         int end = Math.min(ranges[i + 1], pos + BATCH_LENGTH);
+         r.applyTo(txt, pos, end);
+         pos = end;
+         if (pos >= ranges[i + 1]) {
+            i += 2;
+            if (i == ranges.length) {
+               rec = null;
+               return;
+            }
+            pos = ranges[i];
+         }
+         EventQueue.invokeLater(this);
+      }
+   }
+}
@@ -3,9 +3,6 @@ package eg.document;
 import javax.swing.JTextPane;
 
 import java.io.File;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import java.beans.PropertyChangeListener;
@@ -35,7 +32,10 @@ public final class EditableDocument {
    private String filename = "";
    private String filepath = "";
    private String fileParent = "";
-   private String savedContent = "";
+   private long savedSerial = 0;
+   private int savedLength = 0;
+   private long savedHash = 0;
+   private FileFormat format = FileFormat.DEFAULT;
 
    /**
     * Creates an <code>EditableDocument</code> with the specified file
@@ -50,7 +50,7 @@ public final class EditableDocument {
       setFileParams(f);
       setEditingMode(f);
       update.editText(() -> displayFileContentImpl(f), EditorUpdating.ALL_TEXT);
-      savedContent = txt.text();
+      setSavePoint();
    }
 
    /**
@@ -169,7 +169,7 @@ public final class EditableDocument {
       checkFileForNull();
       boolean isWritten = writeToFile(file);
       if (isWritten) {
-         savedContent = txt.text();
+         setSavePoint();
          update.resetChangedState();
       }
       return isWritten;
@@ -184,7 +184,7 @@ public final class EditableDocument {
     */
    public boolean setFile(File f) {
       setFileParams(f);
-      savedContent = txt.text();
+      setSavePoint();
       setEditingMode(f);
       update.editText(() -> {}, EditorUpdating.ALL_TEXT);
       update.resetChangedState();
@@ -215,13 +215,18 @@ public final class EditableDocument {
    }
 
    /**
-    * Returns if the text content equals the text stored at the
-    * last saving point
+    * Returns if the text content equals the text at the last saving
+    * point. The text is the same if the undoable state is the state
+    * at saving or else if the text has the same length and hash code
+    * as at saving
     *
     * @return  true if saved, false otherwise
     */
    public boolean isSaved() {
-      return txt.text().equals(savedContent);
+      if (undo.stateSerial() == savedSerial) {
+         return true;
+      }
+      return textLength() == savedLength && hash(txt.textView()) == savedHash;
    }
 
    /**
@@ -233,13 +238,23 @@ public final class EditableDocument {
       return txt.text();
    }
 
+   /**
+    * Returns a view of the document text that is not copied. The
+    * view reflects any later change to the text
+    *
+    * @return  the text as <code>CharSequence</code>
+    */
+   public CharSequence textView() {
+      return txt.textView();
+   }
+
    /**
     * Returns the length of the document text
     *
     * @return  the length
     */
    public int textLength() {
-      return txt.text().length();
+      return txt.textView().length();
    }
 
    /**
@@ -269,6 +284,16 @@ public final class EditableDocument {
       return indent.indentTab();
    }
 
+   /**
+    * Sets the limit for the memory used to store undoable edits
+    *
+    * @param bytes  the limit in bytes
+    * @see UndoEditing#setMemoryLimit(long)
+    */
+   public void setUndoMemoryLimit(long bytes) {
+      undo.setMemoryLimit(bytes);
+   }
+
    /**
     * Marks the beginning or the end of a merged undoable unit.
     *
@@ -428,6 +453,22 @@ public final class EditableDocument {
       });
    }
 
+   private void setSavePoint() {
+      savedSerial = undo.stateSerial();
+      savedLength = textLength();
+      savedHash = hash(txt.textView());
+   }
+
+   private static long hash(CharSequence text) {
+      //
+      // 64-bit FNV-1a over the characters
+      long h = 0xcbf29ce484222325L;
+      for (int i = 0; i < text.length(); i++) {
+         h = (h ^ text.charAt(i)) * 0x100000001b3L;
+      }
+      return h;
+   }
+
    private void setFileParams(File f) {
       file = f;
       filename = f.getName();
@@ -443,13 +484,14 @@ public final class EditableDocument {
    }
 
    private void readFileContent(File f) {
-      try (BufferedReader br = new BufferedReader(new FileReader(f))) {
-         StringBuilder sb = new StringBuilder();
-         String line;
-         while ((line = br.readLine()) != null) {
-            sb.append(line + "\n");
+      try (FileContentReader reader = new FileContentReader(f)) {
+         int pos = 0;
+         String chunk;
+         while ((chunk = reader.next()) != null) {
+            txt.insert(pos, chunk);
+            pos += chunk.length();
          }
-         txt.textArea().setText(sb.toString());
+         format = reader.format();
       }
       catch (IOException e) {
          FileUtils.log(e);
@@ -470,16 +512,8 @@ public final class EditableDocument {
       if (!isWriteable) {
           return false;
       }
-      try (FileWriter writer = new FileWriter(f)) {
-         if (txt.text().equals("")) {
-            writer.write("");
-         }
-         else {
-            String[] lines = txt.text().split("\n");
-            for (String s : lines) {
-               writer.write(s + System.lineSeparator());
-            }
-         }
+      try {
+         FileContentWriter.write(txt.textView(), f, format);
          return true;
       }
       catch (IOException e) {
@@ -22,6 +22,13 @@ public interface EditingStateReadable {
     */
    public void updateUndoableState(boolean canUndo, boolean canRedo);
 
+   /**
+    * Updates the memory that is used to store the undoable edits
+    *
+    * @param bytes  the number of bytes
+    */
+   public void updateUndoMemoryUsage(long bytes);
+
    /**
     * Updates the state which indicates if text is selected
     *
@@ -9,7 +9,6 @@ import javax.swing.event.CaretEvent;
 
 //--Eadgyth--/
 import eg.Languages;
-import eg.utils.LinesFinder;
 import eg.syntax.*;
 import eg.document.styledtext.EditableText;
 
@@ -28,10 +27,15 @@ public class EditorUpdating {
    /**
     * Value for omitting syntax highlighting */
    public static final int OMIT = 3;
+   //
+   // The text length above which the entire text is highlighted
+   // outside the event dispatch thread
+   private static final int BACKGROUND_LENGTH = 50000;
 
    private final EditableText txt;
    private final LineNumbers lineNum;
    private final SyntaxHighlighter syntax;
+   private final BackgroundHighlighting bgHighlight;
    private final Indentation indent;
    private final UndoEditing undo;
 
@@ -62,7 +66,8 @@ public class EditorUpdating {
       this.undo = undo;
       this.lineNum = lineNum;
       this.indent = indent;
-      syntax = new SyntaxHighlighter(txt);
+      syntax = new SyntaxHighlighter(txt, txt.lineIndex());
+      bgHighlight = new BackgroundHighlighting(txt, syntax);
       txt.addDocumentListener(docListener);
       txt.textArea().addCaretListener(caretListener);
    }
@@ -88,7 +93,7 @@ public class EditorUpdating {
     * @param b  true to enable, false to disable
     */
    public void disableUpdating(boolean b) {
-      if (undo.canUndo() || undo.canRedo() || !txt.text().isEmpty()) {
+      if (undo.canUndo() || undo.canRedo() || txt.textView().length() > 0) {
          throw new IllegalStateException(
                "Cannot disable updating because the document is being"
                + " edited already.");
@@ -107,6 +112,7 @@ public class EditorUpdating {
     * @param cl  the CurrentLanguage
     */
    public void setEditingMode(CurrentLanguage cl) {
+      bgHighlight.cancel();
       syntax.setHighlighter(cl.createHighlighter());
       indent.enableCurlyBracketMode(cl.curlyBracketMode());
       isCodeEditing = cl.lang() != Languages.NORMAL_TEXT;
@@ -127,11 +133,18 @@ public class EditorUpdating {
       isCodeEditing = false;
       tc.edit();
       if (isCodeEditingHelper && editValue != EditorUpdating.OMIT) {
-         if (editValue == EditorUpdating.ALL_TEXT && !txt.text().isEmpty()) {
-            syntax.highlight();
+         if (editValue == EditorUpdating.ALL_TEXT
+               && txt.textView().length() > 0) {
+
+            highlightAll();
          }
          else if (editValue == EditorUpdating.INSERT && isInsert) {
-            syntax.highlight(change, chgPos);
+            if (bgHighlight.isActive() || change.length() > BACKGROUND_LENGTH) {
+               bgHighlight.start();
+            }
+            else {
+               syntax.highlight(change, chgPos);
+            }
          }
       }
       isCodeEditing = isCodeEditingHelper;
@@ -151,17 +164,10 @@ public class EditorUpdating {
       updateUndoableState();
       if (isCodeEditing) {
          if (isInsert) {
-            //
-            // compromise; defined quite arbitrarily
-            if (txt.text().length() > 90000) {
-               EventQueue.invokeLater(syntax::highlight);
-            }
-            else {
-               syntax.highlight();
-            }
+            highlightAll();
          }
          else {
-            syntax.highlight(chgPos, false);
+            highlightSection(chgPos, false);
          }
       }
       isUndoRedo = false;
@@ -186,6 +192,7 @@ public class EditorUpdating {
       if (esr != null) {
          esr.updateChangedState(changedState);
          esr.updateUndoableState(undo.canUndo(), undo.canRedo());
+         esr.updateUndoMemoryUsage(undo.memoryUsage());
          esr.updateSelectionState(selectionState);
          esr.updateCursorState(lineNr, colNr);
       }
@@ -195,9 +202,43 @@ public class EditorUpdating {
    //--private--/
    //
 
+   private void highlightAll() {
+      if (txt.textView().length() > BACKGROUND_LENGTH) {
+         bgHighlight.start();
+      }
+      else {
+         bgHighlight.cancel();
+         syntax.highlight();
+      }
+   }
+
+   private void highlightSection(int pos, boolean isNewline) {
+      if (bgHighlight.isActive()) {
+         bgHighlight.restart();
+      }
+      else {
+         syntax.highlight(pos, isNewline);
+      }
+   }
+
+   //
+   // any edit, also one that is not highlighted, invalidates the result
+   // of a background highlighting that is in progress
+   private void restartBackgroundHighlighting() {
+      if (bgHighlight.isActive()) {
+         bgHighlight.restart();
+      }
+   }
+
    private void updateText() {
       txt.updateTextCopy();
-      lineNum.updateLineNumber(txt.text());
+      lineNum.updateLineNumber(txt.lineIndex().lineCount());
+      updateChangedState();
+   }
+
+   private void updateText(DocumentEvent de) {
+      txt.updateTextCopy(de);
+      lineNum.updateLineNumber(txt.lineIndex().lineCount());
       updateChangedState();
    }
 
@@ -216,6 +257,7 @@ public class EditorUpdating {
          return;
       }
       esr.updateUndoableState(undo.canUndo(), undo.canRedo());
+      esr.updateUndoMemoryUsage(undo.memoryUsage());
    }
 
    private void updateSelectionState(boolean isSelection) {
@@ -232,14 +274,8 @@ public class EditorUpdating {
       if (esr == null) {
          return;
       }
-      int lastNewLine = LinesFinder.lastNewline(txt.text(), caret);
-      lineNr = LinesFinder.lineNrAtPos(txt.text(), caret);
-      if (lastNewLine == -1) {
-         colNr = caret + 1;
-      }
-      else {
-         colNr = caret - lastNewLine;
-      }
+      lineNr = txt.lineIndex().lineNrAtPos(caret);
+      colNr = txt.lineIndex().columnNr(caret);
       esr.updateCursorState(lineNr, colNr);
    }
 
@@ -268,14 +304,17 @@ public class EditorUpdating {
          }
          isInsert = true;
          chgPos = de.getOffset();
-         updateText();
-         change = txt.text().substring(chgPos, chgPos + de.getLength());
+         updateText(de);
+         change = txt.textView().subSequence(chgPos, chgPos + de.getLength())
+               .toString();
+         syntax.updateLineStates(chgPos, change, isInsert);
+         restartBackgroundHighlighting();
          if (!isUndoRedo) {
             undo.addEdit(change, chgPos, isInsert);
             updateUndoableState();
             if (isCodeEditing) {
                boolean isNewline = change.equals("\n");
-               EventQueue.invokeLater(() -> syntax.highlight(chgPos, isNewline));
+               EventQueue.invokeLater(() -> highlightSection(chgPos, isNewline));
                EventQueue.invokeLater(() -> indent.adjustIndent(chgPos));
             }
          }
@@ -288,13 +327,16 @@ public class EditorUpdating {
          }
          isInsert = false;
          chgPos = de.getOffset();
-         change = txt.text().substring(chgPos, chgPos + de.getLength());
-         updateText();
+         change = txt.textView().subSequence(chgPos, chgPos + de.getLength())
+               .toString();
+         updateText(de);
+         syntax.updateLineStates(chgPos, change, isInsert);
+         restartBackgroundHighlighting();
          if (!isUndoRedo) {
             undo.addEdit(change, chgPos, isInsert);
             updateUndoableState();
             if (isCodeEditing) {
-               EventQueue.invokeLater(() -> syntax.highlight(chgPos, false));
+               EventQueue.invokeLater(() -> highlightSection(chgPos, false));
             }
          }
       }
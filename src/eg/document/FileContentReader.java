@@ -0,0 +1,220 @@
+package eg.document;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The reading of the content of a text file in chunks.
+ * <p>
+ * The bytes are read through a <code>FileChannel</code> into a
+ * buffer of fixed size and decoded into chunks of text, so the
+ * content is not held in memory as a whole. The charset is the one
+ * indicated by a byte order mark or else UTF-8 if the content is
+ * valid UTF-8 or else the default charset. Bytes that cannot be
+ * decoded are replaced, which is reported by {@link #isLossy}. Line
+ * separators are converted to "\n" while decoding and the separator
+ * that occurs first is taken as the separator of the file.
+ */
+public final class FileContentReader implements AutoCloseable {
+
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   private final FileChannel channel;
+   private final CharsetDecoder decoder;
+   private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+   private final CharBuffer out = CharBuffer.allocate(BUFFER_SIZE);
+   private final char[] chunk = new char[BUFFER_SIZE];
+   private final Charset charset;
+   private final boolean hasBom;
+   private final String replacement;
+
+   private String lineSep = null;
+   private boolean isCr = false;
+   private boolean isEof = false;
+   private boolean isDone = false;
+   private boolean isLossy = false;
+
+   /**
+    * Opens the specified file and determines the charset
+    *
+    * @param f  the file
+    * @throws IOException  if the file cannot be opened or read
+    */
+   public FileContentReader(File f) throws IOException {
+      channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+      try {
+         byte[] head = new byte[3];
+         int n = readHead(head);
+         Charset cs = FileFormat.charsetOfBom(head, n);
+         hasBom = cs != null;
+         int bomLength = 0;
+         if (hasBom) {
+            bomLength = StandardCharsets.UTF_8.equals(cs) ? 3 : 2;
+         }
+         else {
+            cs = isUtf8() ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+         }
+         charset = cs;
+         channel.position(bomLength);
+         decoder = charset.newDecoder()
+               .onMalformedInput(CodingErrorAction.REPORT)
+               .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+         replacement = decoder.replacement();
+      }
+      catch (IOException e) {
+         channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Returns the next chunk of text
+    *
+    * @return  the chunk; null if the end of the file is reached
+    * @throws IOException  if the file cannot be read
+    */
+   public String next() throws IOException {
+      while (!isDone) {
+         if (!isEof && channel.read(in) == -1) {
+            isEof = true;
+         }
+         in.flip();
+         CoderResult cr = decoder.decode(in, out, isEof);
+         if (cr.isError()) {
+            isLossy = true;
+            //
+            // if the output is full the bytes are decoded again after
+            // the output was taken
+            if (out.remaining() >= replacement.length()) {
+               out.put(replacement);
+               in.position(in.position() + cr.length());
+            }
+         }
+         in.compact();
+         if (isEof && cr.isUnderflow() && decoder.flush(out).isUnderflow()) {
+            isDone = true;
+            if (isCr) {
+               setLineSeparator("\r");
+            }
+         }
+         if (out.position() > 0) {
+            out.flip();
+            int length = convertLineSeparators();
+            out.clear();
+            if (length > 0) {
+               return new String(chunk, 0, length);
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Returns the format of the file. The line separator is known
+    * only after the file was read to the end or up to the first
+    * line separator
+    *
+    * @return  the FileFormat
+    */
+   public FileFormat format() {
+      String sep = lineSep != null ? lineSep
+            : FileFormat.DEFAULT.lineSeparator();
+
+      return new FileFormat(charset, sep, hasBom);
+   }
+
+   /**
+    * Returns if bytes that were read so far could not be decoded and
+    * were replaced, in which case writing the text would not restore
+    * the content
+    *
+    * @return  true if bytes were replaced, false otherwise
+    */
+   public boolean isLossy() {
+      return isLossy;
+   }
+
+   @Override
+   public void close() throws IOException {
+      channel.close();
+   }
+
+   //
+   //--private--/
+   //
+
+   private int readHead(byte[] head) throws IOException {
+      ByteBuffer bb = ByteBuffer.wrap(head);
+      while (bb.hasRemaining() && channel.read(bb) != -1) {
+         // read until head is full or the file ends
+      }
+      return bb.position();
+   }
+
+   private boolean isUtf8() throws IOException {
+      CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+      channel.position(0);
+      boolean eof = false;
+      while (true) {
+         if (!eof && channel.read(in) == -1) {
+            eof = true;
+         }
+         in.flip();
+         CoderResult cr = utf8.decode(in, out, eof);
+         in.compact();
+         out.clear();
+         if (cr.isError()) {
+            in.clear();
+            return false;
+         }
+         if (eof && cr.isUnderflow()) {
+            in.clear();
+            return true;
+         }
+      }
+   }
+
+   private int convertLineSeparators() {
+      int n = 0;
+      while (out.hasRemaining()) {
+         char c = out.get();
+         if (isCr) {
+            isCr = false;
+            if (c == '\n') {
+               setLineSeparator("\r\n");
+               continue;
+            }
+            setLineSeparator("\r");
+         }
+         if (c == '\r') {
+            isCr = true;
+            c = '\n';
+         }
+         else if (c == '\n') {
+            setLineSeparator("\n");
+         }
+         chunk[n++] = c;
+      }
+      return n;
+   }
+
+   private void setLineSeparator(String sep) {
+      if (lineSep == null) {
+         lineSep = sep;
+      }
+   }
+}
@@ -0,0 +1,199 @@
+package eg.document;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * The writing of a text to a file.
+ * <p>
+ * The text is encoded in chunks into a temporary file in the
+ * directory of the file, which then replaces the file by an atomic
+ * move where the file system supports it. The file therefore either
+ * keeps its previous content or receives the complete new content.
+ * "\n" in the text is written as the line separator of the
+ * {@link FileFormat}.
+ * <p>
+ * The temporary file may also be written and moved in separate steps
+ * to replace the content of several files only after all temporary
+ * files were written.
+ */
+public final class FileContentWriter {
+
+   private static final int CHUNK_LENGTH = 1 << 14;
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   /**
+    * Writes the specified text to the specified file
+    *
+    * @param text  the text
+    * @param f  the file
+    * @param format  the FileFormat
+    * @throws IOException  if the file could not be written. The file
+    * is then unchanged
+    */
+   static void write(CharSequence text, File f, FileFormat format)
+         throws IOException {
+
+      commit(writeTemporary(text, f, format), f);
+   }
+
+   /**
+    * Writes the specified text to a temporary file in the directory
+    * of the specified file. The content of the file is replaced by
+    * {@link #commit}
+    *
+    * @param text  the text
+    * @param f  the file
+    * @param format  the FileFormat
+    * @return  the temporary file
+    * @throws IOException  if the temporary file could not be written.
+    * No temporary file is then left
+    */
+   public static Path writeTemporary(CharSequence text, File f,
+         FileFormat format) throws IOException {
+
+      Path target = target(f);
+      Path tmp = target.resolveSibling("." + target.getFileName() + "."
+            + Long.toHexString(System.nanoTime()) + ".tmp");
+
+      boolean isWritten = false;
+      try {
+         try (FileChannel channel = FileChannel.open(tmp,
+               StandardOpenOption.WRITE,
+               StandardOpenOption.CREATE_NEW)) {
+
+            writeContent(channel, text, format);
+            channel.force(false);
+         }
+         copyPermissions(target, tmp);
+         isWritten = true;
+      }
+      finally {
+         if (!isWritten) {
+            Files.deleteIfExists(tmp);
+         }
+      }
+      return tmp;
+   }
+
+   /**
+    * Replaces the content of the specified file with the specified
+    * temporary file by an atomic move where the file system supports
+    * it
+    *
+    * @param tmp  the temporary file returned by {@link #writeTemporary}
+    * @param f  the file
+    * @throws IOException  if the file could not be replaced. The file
+    * is then unchanged and the temporary file is deleted
+    */
+   public static void commit(Path tmp, File f) throws IOException {
+      boolean isMoved = false;
+      try {
+         Path target = target(f);
+         try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+         }
+         catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+         }
+         isMoved = true;
+      }
+      finally {
+         if (!isMoved) {
+            Files.deleteIfExists(tmp);
+         }
+      }
+   }
+
+   //
+   //--private--/
+   //
+
+   private static Path target(File f) throws IOException {
+      Path target = f.toPath().toAbsolutePath();
+      if (Files.exists(target)) {
+         //
+         // replace the file that a symbolic link points to
+         target = target.toRealPath();
+      }
+      return target;
+   }
+
+   private static void writeContent(FileChannel channel, CharSequence text,
+         FileFormat format) throws IOException {
+
+      CharsetEncoder encoder = format.charset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+      String sep = format.lineSeparator();
+      ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+      out.put(format.bom());
+      CharBuffer in = CharBuffer.allocate(CHUNK_LENGTH * sep.length() + 1);
+      int pos = 0;
+      int length = text.length();
+      boolean isLast = false;
+      while (!isLast) {
+         int end = Math.min(length, pos + CHUNK_LENGTH);
+         for (; pos < end; pos++) {
+            char c = text.charAt(pos);
+            if (c == '\n') {
+               in.put(sep);
+            }
+            else {
+               in.put(c);
+            }
+         }
+         isLast = pos == length;
+         in.flip();
+         CoderResult cr = encoder.encode(in, out, isLast);
+         while (cr.isOverflow()) {
+            drain(channel, out);
+            cr = encoder.encode(in, out, isLast);
+         }
+         in.compact();
+      }
+      while (encoder.flush(out).isOverflow()) {
+         drain(channel, out);
+      }
+      drain(channel, out);
+   }
+
+   private static void drain(FileChannel channel, ByteBuffer out)
+         throws IOException {
+
+      out.flip();
+      while (out.hasRemaining()) {
+         channel.write(out);
+      }
+      out.clear();
+   }
+
+   private static void copyPermissions(Path from, Path to) throws IOException {
+      if (!Files.exists(from)) {
+         return;
+      }
+      PosixFileAttributeView view = Files.getFileAttributeView(from,
+            PosixFileAttributeView.class);
+
+      if (view != null) {
+         Files.setPosixFilePermissions(to, view.readAttributes().permissions());
+      }
+   }
+
+   private FileContentWriter() {}
+}
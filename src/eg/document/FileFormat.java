@@ -0,0 +1,167 @@
+package eg.document;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The format in which the text of a file is encoded: the charset,
+ * the line separator and if the content starts with a byte order
+ * mark
+ */
+public final class FileFormat {
+
+   /**
+    * The format for a new file which uses the default charset and
+    * line separator of the platform
+    */
+   public static final FileFormat DEFAULT = new FileFormat(
+         Charset.defaultCharset(), System.lineSeparator(), false);
+
+   private static final byte[] UTF_8_BOM = {
+      (byte) 0xEF, (byte) 0xBB, (byte) 0xBF
+   };
+   private static final byte[] UTF_16BE_BOM = {
+      (byte) 0xFE, (byte) 0xFF
+   };
+   private static final byte[] UTF_16LE_BOM = {
+      (byte) 0xFF, (byte) 0xFE
+   };
+
+   private final Charset charset;
+   private final String lineSep;
+   private final boolean hasBom;
+
+   /**
+    * @param charset  the charset
+    * @param lineSep  the line separator, one of "\n", "\r\n" and
+    * "\r"
+    * @param hasBom  true if the content starts with a byte order
+    * mark
+    */
+   public FileFormat(Charset charset, String lineSep, boolean hasBom) {
+      if (!"\n".equals(lineSep) && !"\r\n".equals(lineSep)
+            && !"\r".equals(lineSep)) {
+
+         throw new IllegalArgumentException(
+               "Not a line separator: " + lineSep);
+      }
+      this.charset = charset;
+      this.lineSep = lineSep;
+      this.hasBom = hasBom;
+   }
+
+   /**
+    * Returns the charset
+    *
+    * @return  the charset
+    */
+   public Charset charset() {
+      return charset;
+   }
+
+   /**
+    * Returns the line separator
+    *
+    * @return  the line separator
+    */
+   public String lineSeparator() {
+      return lineSep;
+   }
+
+   /**
+    * Returns if the content starts with a byte order mark
+    *
+    * @return  true if a byte order mark is present
+    */
+   public boolean hasBom() {
+      return hasBom;
+   }
+
+   /**
+    * Returns the bytes of the byte order mark that is written at the
+    * start of the content
+    *
+    * @return  the bytes; an empty array if no mark is written or the
+    * charset has none
+    */
+   public byte[] bom() {
+      if (hasBom) {
+         if (StandardCharsets.UTF_8.equals(charset)) {
+            return UTF_8_BOM.clone();
+         }
+         else if (StandardCharsets.UTF_16BE.equals(charset)) {
+            return UTF_16BE_BOM.clone();
+         }
+         else if (StandardCharsets.UTF_16LE.equals(charset)) {
+            return UTF_16LE_BOM.clone();
+         }
+      }
+      return new byte[0];
+   }
+
+   /**
+    * Returns a <code>FileFormat</code> with the charset of this
+    * format and the specified line separator
+    *
+    * @param lineSep  the line separator
+    * @return  the FileFormat
+    */
+   public FileFormat withLineSeparator(String lineSep) {
+      return lineSep.equals(this.lineSep) ? this
+            : new FileFormat(charset, lineSep, hasBom);
+   }
+
+   /**
+    * Returns the charset indicated by a byte order mark at the start
+    * of the specified bytes
+    *
+    * @param b  the first bytes of a content
+    * @param length  the number of bytes in <code>b</code>
+    * @return  the charset; null if the bytes do not start with a
+    * byte order mark
+    */
+   static Charset charsetOfBom(byte[] b, int length) {
+      if (startsWith(b, length, UTF_8_BOM)) {
+         return StandardCharsets.UTF_8;
+      }
+      else if (startsWith(b, length, UTF_16BE_BOM)) {
+         return StandardCharsets.UTF_16BE;
+      }
+      else if (startsWith(b, length, UTF_16LE_BOM)) {
+         return StandardCharsets.UTF_16LE;
+      }
+      return null;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (!(o instanceof FileFormat)) {
+         return false;
+      }
+      FileFormat ff = (FileFormat) o;
+      return charset.equals(ff.charset) && lineSep.equals(ff.lineSep)
+            && hasBom == ff.hasBom;
+   }
+
+   @Override
+   public int hashCode() {
+      return (charset.hashCode() * 31 + lineSep.hashCode()) * 2
+            + (hasBom ? 1 : 0);
+   }
+
+   //
+   //--private--/
+   //
+
+   private static boolean startsWith(byte[] b, int length, byte[] bom) {
+      if (length < bom.length) {
+         return false;
+      }
+      for (int i = 0; i < bom.length; i++) {
+         if (b[i] != bom[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+}
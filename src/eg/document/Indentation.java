@@ -2,6 +2,7 @@ package eg.document;
 
 //--Eadgyth--/
 import eg.document.styledtext.EditableText;
+import eg.utils.TextUtils;
 
 /**
  * The auto-indentation
@@ -78,7 +79,7 @@ public class Indentation {
     * @param pos  the position
     */
    public void adjustIndent(int pos) {
-      char charAtPos = txt.text().charAt(pos);
+      char charAtPos = txt.textView().charAt(pos);
       if ('\n' == charAtPos) {
          indent(pos);
       }
@@ -103,7 +104,7 @@ public class Indentation {
       else {
          indent.append(joinSpaces(length));
       }
-      if (curlyBracketMode && pos >= 1 && '{' == txt.text().charAt(pos - 1)) {
+      if (curlyBracketMode && pos >= 1 && '{' == txt.textView().charAt(pos - 1)) {
          if (indentTab) {
             indent.append('\t');
          }
@@ -118,7 +119,7 @@ public class Indentation {
    }
 
    private void outdent(int pos) {
-      int lineStart = txt.text().lastIndexOf('\n', pos - 1) + 1;
+      int lineStart = TextUtils.lastIndexOf(txt.textView(), '\n', pos - 1) + 1;
       if (pos == lineStart) {
          return;
       }
@@ -151,8 +152,8 @@ public class Indentation {
 
     private int outdentPos(int pos) {
       int outdentPos = 0;
-      int lastOpeningPos = txt.text().lastIndexOf('{', pos - 1);
-      int lastClosingPos = txt.text().lastIndexOf('}', pos - 1);
+      int lastOpeningPos = TextUtils.lastIndexOf(txt.textView(), '{', pos - 1);
+      int lastClosingPos = TextUtils.lastIndexOf(txt.textView(), '}', pos - 1);
       int indentAtLastBrace = 0;
       if (lastOpeningPos > lastClosingPos) {
          indentAtLastBrace = indentLengthAt(lastOpeningPos);
@@ -189,8 +190,8 @@ public class Indentation {
    }
 
    private char[] lineUpTo(int pos) {
-      int lineStart = txt.text().lastIndexOf('\n', pos - 1) + 1;
-      return txt.text().substring(lineStart, pos).toCharArray();
+      int lineStart = TextUtils.lastIndexOf(txt.textView(), '\n', pos - 1) + 1;
+      return txt.textView().subSequence(lineStart, pos).toString().toCharArray();
    }
 
    private String joinTabs(int length) {
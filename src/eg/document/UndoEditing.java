@@ -4,8 +4,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.KeyAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 //--Eadgyth--/
 import eg.document.styledtext.EditableText;
@@ -39,21 +38,52 @@ import eg.document.styledtext.EditableText;
  * unit (see {@link #disableBreakpointAdding(boolean)}).
  * <p>
  * Any undone edits are removed when a new edit is added.
+ * <p>
+ * Each added edit receives a serial number that is never reused.
+ * The serial number of the last edit that is not undone identifies
+ * the state of the text (see {@link #stateSerial()}).
+ * <p>
+ * The edits are stored in growable primitive arrays and the text
+ * contents in one shared char buffer. A single character that is
+ * inserted right behind a previous insertion in the same undoable
+ * unit is appended to the content of that insertion instead of
+ * adding a new edit. If the memory used by the stored edits exceeds
+ * a limit (see {@link #setMemoryLimit(long)}) the oldest undoable
+ * units are discarded.
  */
 public class UndoEditing {
 
+   /**
+    * The default memory limit in bytes */
+   public static final long DEFAULT_MEMORY_LIMIT = 32L << 20;
+
+   //
+   // bytes per stored edit: position, content offset and length,
+   // type and serial number
+   private static final int EDIT_BYTES = 4 + 4 + 4 + 1 + 8;
+
    private final EditableText txt;
 
-   private final List<String> contents = new ArrayList<>(1000);
-   private final List<Integer> positions = new ArrayList<>(1000);
-   private final List<Boolean> types = new ArrayList<>(1000);
-   private final List<Integer> breakpoints = new ArrayList<>(500);
+   private int[] positions = new int[1000];
+   private int[] offsets = new int[1000];
+   private int[] lengths = new int[1000];
+   private byte[] types = new byte[1000];
+   private long[] serials = new long[1000];
+   private int size = 0;
+
+   private char[] chars = new char[4000];
+   private int charsLength = 0;
+
+   private int[] breakpoints = new int[500];
+   private int nBreak = 0;
 
    private int iEd = -1;
-   private int iBr = -1;
    private boolean isMark = false;
    private boolean isMerging = false;
    private boolean isDeleteTyped = false;
+   private long nextSerial = 1;
+   private long baseSerial = 0;
+   private long memoryLimit = DEFAULT_MEMORY_LIMIT;
 
    /**
     * @param txt  the {@link EditableText}
@@ -63,6 +93,33 @@ public class UndoEditing {
       txt.textArea().addKeyListener(keyListener);
    }
 
+   /**
+    * Sets the limit for the memory used by the stored edits. The
+    * most recent undoable unit is kept even if it exceeds the limit
+    *
+    * @param bytes  the limit in bytes
+    */
+   public void setMemoryLimit(long bytes) {
+      if (bytes <= 0) {
+         throw new IllegalArgumentException(
+               "The memory limit must be positive: " + bytes);
+      }
+      memoryLimit = bytes;
+      if (memoryUsage() > memoryLimit) {
+         discardOldest();
+      }
+   }
+
+   /**
+    * Returns the approximate memory used by the stored edits
+    *
+    * @return  the number of bytes
+    */
+   public long memoryUsage() {
+      return (long) size * EDIT_BYTES + (long) nBreak * 4
+            + (long) charsLength * 2;
+   }
+
    /**
     * Adds an edit
     *
@@ -72,35 +129,18 @@ public class UndoEditing {
     */
    public void addEdit(String content, int pos, boolean isInsert) {
       trim();
-      contents.add(content);
-      positions.add(pos);
-      types.add(isInsert);
-      iEd = contents.size() - 1;
-      if (isMark) {
-         addBreakpoint();
-         isMark = false;
-      }
-      if ("\n".equals(content)) {
-         isMark = true;
+      if (isAppendable(content, pos, isInsert)) {
+         appendChars(content);
+         lengths[iEd]++;
+         serials[iEd] = nextSerial++;
+         isDeleteTyped = false;
       }
-      else if (iEd > 0) {
-         if (isInsert != isInsert(iEd - 1)) {
-            boolean isReplace = isInsert && !isDeleteTyped;
-            if (!isReplace) {
-               addBreakpoint();
-            }
-            else {
-               isMark = true;
-            }
-         }
-         else if (!isInsert && content.length() > 1) {
-            addBreakpoint();
-         }
+      else {
+         addEditImpl(content, pos, isInsert);
       }
-      if (isInsert) {
-         isDeleteTyped = false;
+      if (memoryUsage() > memoryLimit) {
+         discardOldest();
       }
-      iBr = breakpoints.size() - 1;
    }
 
    /**
@@ -118,7 +158,18 @@ public class UndoEditing {
     * @return  true if contents can be redone
     */
    public boolean canRedo() {
-      return iEd < contents.size() - 1;
+      return iEd < size - 1;
+   }
+
+   /**
+    * Returns the serial number of the last edit that is not undone.
+    * Two equal serial numbers mean that the text is the same.
+    *
+    * @return  the serial number; 0 if no edit was added or all edits
+    * are undone and none was discarded
+    */
+   public long stateSerial() {
+      return iEd > -1 ? serials[iEd] : baseSerial;
    }
 
    /**
@@ -126,54 +177,45 @@ public class UndoEditing {
     * before the contents that are not yet undone
     */
    public void undo() {
+      int iBreak = indexOfBreakpoint(iEd) - 1;
+      int stop = iBreak > -1 ? breakPt(iBreak) : -1;
       int nextPos = 0;
-      while (iEd > -1) {
+      while (iEd > stop) {
          if (isInsert(iEd)) {
             nextPos = pos(iEd);
-            txt.remove(nextPos, content(iEd).length());
+            txt.remove(nextPos, lengths[iEd]);
          }
          else {
-            nextPos = pos(iEd) + content(iEd).length();
+            nextPos = pos(iEd) + lengths[iEd];
             txt.insert(pos(iEd), content(iEd));
          }
          iEd--;
-         if (iBr > -1 && iEd == breakPt(iBr)) {
-            iBr--;
-            break;
-         }
-      }
-      if (iEd == -1) {
-         iBr--;
       }
       setCaretPosition(nextPos);
    }
 
    /**
     * Redoes contents up to the next breakpoint that is located
-    * behind the contents that are undone and not yet redone
+    * behind the contents that are undone and not yet redone. An edit
+    * that is added next starts a new undoable unit
     */
    public void redo() {
+      int iBreak = indexOfBreakpoint(iEd + 1);
+      int stop = iBreak < nBreak ? breakPt(iBreak) : size - 1;
       int nextPos = 0;
-      while (iEd < contents.size() - 1) {
+      while (iEd < stop) {
          int iNext = iEd + 1;
          if (isInsert(iNext)) {
-            nextPos = pos(iNext) + content(iNext).length();
+            nextPos = pos(iNext) + lengths[iNext];
             txt.insert(pos(iNext), content(iNext));
          }
          else {
             nextPos = pos(iNext);
-            txt.remove(nextPos, content(iNext).length());
+            txt.remove(nextPos, lengths[iNext]);
          }
          iEd++;
-         int iBrAhead = iBr + 2;
-         if (iBrAhead < breakpoints.size() && iNext == breakPt(iBrAhead)) {
-            iBr++;
-            break;
-         }
-      }
-      if (iEd == contents.size() - 1) {
-         iBr++;
       }
+      markBreakpoint();
       setCaretPosition(nextPos);
    }
 
@@ -182,7 +224,7 @@ public class UndoEditing {
     * added
     */
    public void markBreakpoint() {
-      if (!contents.isEmpty()) {
+      if (size > 0) {
          isMark = true;
       }
    }
@@ -195,7 +237,7 @@ public class UndoEditing {
     * @param b  true to disable, false to re-enable
     */
    public void disableBreakpointAdding(boolean b) {
-      if (b && !txt.text().isEmpty()) {
+      if (b && txt.textView().length() > 0) {
          addBreakpoint(iEd);
       }
       else {
@@ -208,6 +250,69 @@ public class UndoEditing {
    //--private--/
    //
 
+   private void addEditImpl(String content, int pos, boolean isInsert) {
+      if (size == positions.length) {
+         int n = size * 2;
+         positions = Arrays.copyOf(positions, n);
+         offsets = Arrays.copyOf(offsets, n);
+         lengths = Arrays.copyOf(lengths, n);
+         types = Arrays.copyOf(types, n);
+         serials = Arrays.copyOf(serials, n);
+      }
+      positions[size] = pos;
+      offsets[size] = charsLength;
+      lengths[size] = content.length();
+      types[size] = (byte) (isInsert ? 1 : 0);
+      serials[size] = nextSerial++;
+      appendChars(content);
+      size++;
+      iEd = size - 1;
+      if (isMark) {
+         addBreakpoint();
+         isMark = false;
+      }
+      if ("\n".equals(content)) {
+         isMark = true;
+      }
+      else if (iEd > 0) {
+         if (isInsert != isInsert(iEd - 1)) {
+            boolean isReplace = isInsert && !isDeleteTyped;
+            if (!isReplace) {
+               addBreakpoint();
+            }
+            else {
+               isMark = true;
+            }
+         }
+         else if (!isInsert && content.length() > 1) {
+            addBreakpoint();
+         }
+      }
+      if (isInsert) {
+         isDeleteTyped = false;
+      }
+   }
+
+   private boolean isAppendable(String content, int pos, boolean isInsert) {
+      //
+      // appending to the last edit is equivalent to adding a new edit
+      // if no breakpoint would separate the two edits
+      return isInsert && content.length() == 1 && content.charAt(0) != '\n'
+            && !isMark && iEd > -1 && isInsert(iEd)
+            && pos == pos(iEd) + lengths[iEd]
+            && (nBreak == 0 || breakPt(nBreak - 1) != iEd);
+   }
+
+   private void appendChars(String content) {
+      int n = content.length();
+      if (charsLength + n > chars.length) {
+         chars = Arrays.copyOf(chars, Math.max(chars.length * 2,
+               charsLength + n));
+      }
+      content.getChars(0, n, chars, charsLength);
+      charsLength += n;
+   }
+
    private void addBreakpoint() {
       if (!isMerging) {
          addBreakpoint(iEd - 1);
@@ -215,42 +320,96 @@ public class UndoEditing {
    }
 
    private void addBreakpoint(int index) {
-      int iLastBreak = breakpoints.size() - 1;
+      int iLastBreak = nBreak - 1;
       if (iLastBreak == -1 || index != breakPt(iLastBreak)) {
-         breakpoints.add(index);
-         iBr = breakpoints.size() - 1;
+         if (nBreak == breakpoints.length) {
+            breakpoints = Arrays.copyOf(breakpoints, nBreak * 2);
+         }
+         breakpoints[nBreak++] = index;
       }
    }
 
    private void trim() {
-      if (iEd == contents.size() - 1) {
+      if (iEd == size - 1) {
          return; // no contents are undone or all undone contents are redone
       }
-      for (int i = contents.size() - 1; i > iEd; i--) {
-         contents.remove(i);
-         positions.remove(i);
-         types.remove(i);
-         int iLastBreak = breakpoints.size() - 1;
-         if (iLastBreak > -1 && i == breakPt(iLastBreak)) {
-            breakpoints.remove(iLastBreak);
+      size = iEd + 1;
+      nBreak = indexOfBreakpoint(size);
+      charsLength = size > 0 ? offsets[size - 1] + lengths[size - 1] : 0;
+   }
+
+   private void discardOldest() {
+      //
+      // discard whole units from the start down to three quarters of
+      // the limit; the unit that contains the last done edit is kept
+      long target = memoryLimit / 4 * 3;
+      long usage = memoryUsage();
+      int iLast = -1;
+      for (int i = 0; i < nBreak && breakPt(i) < iEd; i++) {
+         if (breakPt(i) < 0) {
+            iLast = i;
+            continue;
+         }
+         iLast = i;
+         int n = breakPt(i) + 1;
+         long freed = (long) n * EDIT_BYTES + (long) (i + 1) * 4
+               + (long) (offsets[n - 1] + lengths[n - 1]) * 2;
+
+         if (usage - freed <= target) {
+            break;
          }
       }
+      if (iLast == -1 || breakPt(iLast) < 0) {
+         return;
+      }
+      int n = breakPt(iLast) + 1;
+      int nChars = offsets[n - 1] + lengths[n - 1];
+      baseSerial = serials[n - 1];
+      System.arraycopy(chars, nChars, chars, 0, charsLength - nChars);
+      charsLength -= nChars;
+      int rest = size - n;
+      System.arraycopy(positions, n, positions, 0, rest);
+      System.arraycopy(offsets, n, offsets, 0, rest);
+      System.arraycopy(lengths, n, lengths, 0, rest);
+      System.arraycopy(types, n, types, 0, rest);
+      System.arraycopy(serials, n, serials, 0, rest);
+      for (int i = 0; i < rest; i++) {
+         offsets[i] -= nChars;
+      }
+      size = rest;
+      iEd -= n;
+      int nBreakRemoved = iLast + 1;
+      System.arraycopy(breakpoints, nBreakRemoved, breakpoints, 0,
+            nBreak - nBreakRemoved);
+      nBreak -= nBreakRemoved;
+      for (int i = 0; i < nBreak; i++) {
+         breakpoints[i] -= n;
+      }
+   }
+
+   private int indexOfBreakpoint(int index) {
+      //
+      // the breakpoints are ascending; returns the index of the
+      // first breakpoint that is not smaller than the specified
+      // edit index
+      int i = Arrays.binarySearch(breakpoints, 0, nBreak, index);
+      return i > -1 ? i : -i - 1;
    }
 
    private int pos(int i) {
-      return positions.get(i);
+      return positions[i];
    }
 
    private String content(int i) {
-      return contents.get(i);
+      return new String(chars, offsets[i], lengths[i]);
    }
 
    private boolean isInsert(int i) {
-      return types.get(i);
+      return types[i] == 1;
    }
 
    private int breakPt(int i) {
-      return breakpoints.get(i);
+      return breakpoints[i];
    }
 
    private void setCaretPosition(int pos) {
@@ -0,0 +1,150 @@
+package eg.document.styledtext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.DocumentEvent;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+
+/**
+ * A <code>DefaultStyledDocument</code> that sets the character
+ * attributes of many sections at once.
+ * <p>
+ * The document is locked once for all sections and one
+ * <code>DocumentEvent</code> of type change is fired. Character
+ * elements are rebuilt only in paragraphs where attributes actually
+ * change and neighbouring elements with equal attributes are joined.
+ * Unlike <code>setCharacterAttributes</code> no undoable edit is
+ * posted.
+ */
+@SuppressWarnings("serial")
+final class BatchStyledDocument extends DefaultStyledDocument {
+
+   /**
+    * Adds character attributes to sections of the text like
+    * <code>setCharacterAttributes(offset, length, s, false)</code>
+    * for each section
+    *
+    * @param starts  the start positions of the sections in ascending
+    * order. The sections must not overlap
+    * @param lengths  the lengths of the sections
+    * @param sets  the attributes for the sections
+    * @param n  the number of sections
+    */
+   void addCharacterAttributes(int[] starts, int[] lengths,
+         AttributeSet[] sets, int n) {
+
+      if (n == 0) {
+         return;
+      }
+      try {
+         writeLock();
+         int first = Math.max(0, starts[0]);
+         int last = Math.min(getLength(), starts[n - 1] + lengths[n - 1]);
+         if (first >= last) {
+            return;
+         }
+         DefaultDocumentEvent changes = new DefaultDocumentEvent(first,
+               last - first, DocumentEvent.EventType.CHANGE);
+
+         Element root = getDefaultRootElement();
+         int iLast = root.getElementIndex(last - 1);
+         int k = 0;
+         boolean isChange = false;
+         for (int i = root.getElementIndex(first); i <= iLast; i++) {
+            BranchElement par = (BranchElement) root.getElement(i);
+            int pStart = par.getStartOffset();
+            while (k < n && starts[k] + lengths[k] <= pStart) {
+               k++;
+            }
+            if (k == n || starts[k] >= par.getEndOffset()) {
+               continue;
+            }
+            int kEnd = k;
+            while (kEnd + 1 < n && starts[kEnd + 1] < par.getEndOffset()) {
+               kEnd++;
+            }
+            isChange |= rebuild(par, starts, lengths, sets, k, kEnd, changes);
+            k = kEnd;
+         }
+         changes.end();
+         if (isChange) {
+            fireChangedUpdate(changes);
+         }
+      }
+      finally {
+         writeUnlock();
+      }
+   }
+
+   //
+   //--private--/
+   //
+
+   private boolean rebuild(BranchElement par, int[] starts, int[] lengths,
+         AttributeSet[] sets, int k, int kEnd, DefaultDocumentEvent changes) {
+
+      int from = Math.max(par.getStartOffset(), starts[k]);
+      int to = Math.min(par.getEndOffset(), starts[kEnd] + lengths[kEnd]);
+      int c0 = par.getElementIndex(from);
+      int c1 = par.getElementIndex(to - 1);
+      //
+      // include the neighbours to join them if possible
+      c0 = Math.max(0, c0 - 1);
+      c1 = Math.min(par.getElementCount() - 1, c1 + 1);
+      AttributeContext context = getAttributeContext();
+      List<Element> added = new ArrayList<>();
+      AttributeSet pending = null;
+      int pendingStart = 0;
+      int r = k;
+      boolean isChange = false;
+      for (int c = c0; c <= c1; c++) {
+         Element leaf = par.getElement(c);
+         AttributeSet old = leaf.getAttributes().copyAttributes();
+         int pos = leaf.getStartOffset();
+         int leafEnd = leaf.getEndOffset();
+         while (pos < leafEnd) {
+            while (r <= kEnd && starts[r] + lengths[r] <= pos) {
+               r++;
+            }
+            AttributeSet a = old;
+            int end;
+            if (r <= kEnd && starts[r] <= pos) {
+               end = Math.min(leafEnd, starts[r] + lengths[r]);
+               if (!old.containsAttributes(sets[r])) {
+                  a = context.addAttributes(old, sets[r]);
+                  isChange = true;
+               }
+            }
+            else {
+               end = r <= kEnd ? Math.min(leafEnd, starts[r]) : leafEnd;
+            }
+            if (pending == null || !pending.isEqual(a)) {
+               if (pending != null) {
+                  added.add(createLeafElement(par, pending, pendingStart, pos));
+               }
+               pending = a;
+               pendingStart = pos;
+            }
+            pos = end;
+         }
+      }
+      if (!isChange) {
+         return false;
+      }
+      added.add(createLeafElement(par, pending, pendingStart,
+            par.getElement(c1).getEndOffset()));
+
+      Element[] removed = new Element[c1 - c0 + 1];
+      for (int i = 0; i < removed.length; i++) {
+         removed[i] = par.getElement(c0 + i);
+      }
+      Element[] addedArr = added.toArray(new Element[added.size()]);
+      par.replace(c0, removed.length, addedArr);
+      changes.addEdit(new ElementEdit(par, c0, removed, addedArr));
+      return true;
+   }
+}
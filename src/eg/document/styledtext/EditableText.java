@@ -4,17 +4,21 @@ import java.awt.FontMetrics;
 
 import javax.swing.JTextPane;
 
+import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
 import javax.swing.text.TabSet;
 import javax.swing.text.TabStop;
 
 //--Eadgyth--/
 import eg.BackgroundTheme;
 import eg.utils.FileUtils;
+import eg.utils.LineIndex;
 
 /**
  * The styled text that is edited
@@ -27,7 +31,9 @@ public class EditableText extends StyledText {
 
    private final JTextPane textArea;
 
-   private String text = "";
+   private final TextBuffer text = new TextBuffer();
+   private final Segment seg = new Segment();
+   private final LineIndex lineIndex = new LineIndex();
 
    static {
       StyleConstants.setForeground(SET, THEME.normalText());
@@ -39,7 +45,7 @@ public class EditableText extends StyledText {
     * @param textArea  the JTextPane that displays the text
     */
    public EditableText(JTextPane textArea) {
-      super(textArea.getStyledDocument(), SET);
+      super(installDocument(textArea), SET);
       this.textArea = textArea;
    }
 
@@ -55,21 +61,69 @@ public class EditableText extends StyledText {
     */
    @Override
    public final String text() {
+      return text.toString();
+   }
+
+   /**
+    * {@inheritDoc}.
+    * The view reflects the copy of the document text which is updated
+    * by {@link #updateTextCopy}
+    */
+   @Override
+   public final CharSequence textView() {
       return text;
    }
 
    /**
-    * Updates this copy of the text contained in the document
+    * Gets the index of line starts which is updated together with
+    * the copy of the text
+    *
+    * @return  the LineIndex
+    */
+   public final LineIndex lineIndex() {
+      return lineIndex;
+   }
+
+   /**
+    * Updates this copy of the text with the entire text contained in
+    * the document
     */
    public final void updateTextCopy() {
       try {
-         text = doc().getText(0, doc().getLength());
+         doc().getText(0, doc().getLength(), seg);
+         text.set(seg.array, seg.offset, seg.count);
+         lineIndex.reset(text);
       }
       catch (BadLocationException e) {
          FileUtils.log(e);
       }
    }
 
+   /**
+    * Updates this copy of the text with the change that is described
+    * by the specified <code>DocumentEvent</code>
+    *
+    * @param de  the DocumentEvent for an insertion or removal
+    */
+   public final void updateTextCopy(DocumentEvent de) {
+      int pos = de.getOffset();
+      int length = de.getLength();
+      if (de.getType() == DocumentEvent.EventType.INSERT) {
+         try {
+            doc().getText(pos, length, seg);
+            text.insert(pos, seg.array, seg.offset, seg.count);
+            lineIndex.insert(text, pos, length);
+         }
+         catch (BadLocationException e) {
+            FileUtils.log(e);
+         }
+      }
+      else if (de.getType() == DocumentEvent.EventType.REMOVE) {
+         text.remove(pos, length);
+         lineIndex.remove(pos, length);
+      }
+   }
+
    /**
     * Inserts text
     *
@@ -138,4 +192,14 @@ public class EditableText extends StyledText {
    public final JTextPane textArea() {
       return textArea;
    }
+
+   //
+   //--private--/
+   //
+
+   private static StyledDocument installDocument(JTextPane textArea) {
+      BatchStyledDocument doc = new BatchStyledDocument();
+      textArea.setStyledDocument(doc);
+      return doc;
+   }
 }
@@ -8,7 +8,6 @@ import javax.swing.JTextPane;
 
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
-import javax.swing.text.DefaultStyledDocument;
 
 //--Eadgyth--/
 import eg.BackgroundTheme;
@@ -38,7 +37,7 @@ public class PrintableText extends StyledText {
     * @param font  the font
     */
    public PrintableText(String text, Font font) {
-      super(new DefaultStyledDocument(), SET);
+      super(new BatchStyledDocument(), SET);
       this.text = text;
       printArea = new JTextPane();
       printArea.setDocument(doc());
@@ -56,7 +55,12 @@ public class PrintableText extends StyledText {
    @Override
    public final String text() {
       return text;
-   }      
+   }
+
+   @Override
+   public final CharSequence textView() {
+      return text;
+   }
    
    /**
     * Prints this styled text
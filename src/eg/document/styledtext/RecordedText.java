@@ -0,0 +1,154 @@
+package eg.document.styledtext;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+import javax.swing.text.SimpleAttributeSet;
+
+/**
+ * The styled text that records the attributes set on a fixed copy
+ * of a text instead of setting them in a document.
+ * <p>
+ * A <code>RecordedText</code> is meant to be highlighted outside the
+ * event dispatch thread. The recorded attributes are then applied to
+ * the text from which the copy was taken if this text was not changed
+ * in the meantime. Setting attributes throws a
+ * <code>CancellationException</code> once the recording is
+ * cancelled.
+ */
+public final class RecordedText extends StyledText {
+
+   private final String text;
+   private final Attributes attr;
+   private final byte[] styles;
+
+   private SimpleAttributeSet[] sets = new SimpleAttributeSet[8];
+   private int nSets = 1;
+   private volatile boolean isCancelled = false;
+
+   /**
+    * @param text  the copy of the text
+    * @param attr  the Attributes of the text from which the copy is
+    * taken
+    * @param normal  the SimpleAttributeSet for normal text of the
+    * text from which the copy is taken
+    */
+   public RecordedText(String text, Attributes attr, SimpleAttributeSet normal) {
+      super(normal);
+      this.text = text;
+      this.attr = attr;
+      styles = new byte[text.length()];
+      sets[0] = normal;
+   }
+
+   @Override
+   public Attributes attributes() {
+      return attr;
+   }
+
+   @Override
+   public String text() {
+      return text;
+   }
+
+   @Override
+   public CharSequence textView() {
+      return text;
+   }
+
+   @Override
+   public void resetAttributes() {
+      record(0, styles.length, 0);
+   }
+
+   @Override
+   public void resetAttributes(int pos, int length) {
+      record(pos, length, 0);
+   }
+
+   @Override
+   public void setAttributes(int pos, int length, SimpleAttributeSet set) {
+      record(pos, length, idOf(set));
+   }
+
+   /**
+    * Cancels the recording
+    */
+   public void cancel() {
+      isCancelled = true;
+   }
+
+   /**
+    * Returns if the recording is cancelled
+    *
+    * @return  true if cancelled, false otherwise
+    */
+   public boolean isCancelled() {
+      return isCancelled;
+   }
+
+   /**
+    * Sets the recorded attributes in a section of the specified
+    * <code>StyledText</code>
+    *
+    * @param target  the StyledText whose text equals the text of
+    * this RecordedText
+    * @param start  the start of the section
+    * @param end  the end of the section
+    */
+   public void applyTo(StyledText target, int start, int end) {
+      target.startBuffering();
+      try {
+         applyRuns(target, start, end);
+      }
+      finally {
+         target.applyBuffered();
+      }
+   }
+
+   //
+   //--private--/
+   //
+
+   private void applyRuns(StyledText target, int start, int end) {
+      int pos = Math.max(0, start);
+      int last = Math.min(end, styles.length);
+      while (pos < last) {
+         byte id = styles[pos];
+         int runEnd = pos + 1;
+         while (runEnd < last && styles[runEnd] == id) {
+            runEnd++;
+         }
+         target.setAttributes(pos, runEnd - pos, sets[id]);
+         pos = runEnd;
+      }
+   }
+
+   private void record(int pos, int length, int id) {
+      if (isCancelled) {
+         throw new CancellationException();
+      }
+      if (pos < 0 || pos >= styles.length || length <= 0) {
+         return;
+      }
+      int end = Math.min(pos + length, styles.length);
+      Arrays.fill(styles, pos, end, (byte) id);
+   }
+
+   private int idOf(SimpleAttributeSet set) {
+      for (int i = 0; i < nSets; i++) {
+         if (sets[i] == set) {
+            return i;
+         }
+      }
+      if (nSets == Byte.MAX_VALUE) {
+         throw new IllegalStateException(
+               "Too many different attribute sets");
+      }
+      if (nSets == sets.length) {
+         sets = Arrays.copyOf(sets, sets.length * 2);
+      }
+      sets[nSets] = set;
+      return nSets++;
+   }
+}
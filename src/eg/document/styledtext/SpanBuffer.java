@@ -0,0 +1,163 @@
+package eg.document.styledtext;
+
+import java.util.Arrays;
+
+import javax.swing.text.SimpleAttributeSet;
+
+/**
+ * The buffer of sections of text with the attributes that are set
+ * on them.
+ * <p>
+ * The sections are kept in the order of adding in parallel int
+ * arrays. {@link #resolve} converts them into runs of characters
+ * with equal attributes where a later section overrides an earlier
+ * section it overlaps.
+ */
+final class SpanBuffer {
+
+   private static final int MAX_KEPT_PAINT_LENGTH = 1 << 20;
+
+   private int[] starts = new int[256];
+   private int[] lengths = new int[256];
+   private byte[] ids = new byte[256];
+   private int n = 0;
+
+   private SimpleAttributeSet[] sets = new SimpleAttributeSet[8];
+   private int nSets = 1; // id 0: not set
+   private byte[] paint = new byte[0];
+
+   int[] runStarts = new int[64];
+   int[] runLengths = new int[64];
+   SimpleAttributeSet[] runSets = new SimpleAttributeSet[64];
+   int nRuns = 0;
+
+   /**
+    * Adds a section
+    *
+    * @param pos  the position where the section starts
+    * @param length  the length of the section
+    * @param set  the attributes
+    */
+   void add(int pos, int length, SimpleAttributeSet set) {
+      if (length <= 0) {
+         return;
+      }
+      if (n == starts.length) {
+         int size = n * 2;
+         starts = Arrays.copyOf(starts, size);
+         lengths = Arrays.copyOf(lengths, size);
+         ids = Arrays.copyOf(ids, size);
+      }
+      starts[n] = pos;
+      lengths[n] = length;
+      ids[n] = (byte) idOf(set);
+      n++;
+   }
+
+   /**
+    * Returns if no section has been added since the last
+    * {@link #clear}
+    *
+    * @return  true if empty
+    */
+   boolean isEmpty() {
+      return n == 0;
+   }
+
+   /**
+    * Converts the sections into runs of characters with equal
+    * attributes, which are sorted by position
+    *
+    * @param textLength  the length of the text where the sections
+    * are located
+    */
+   void resolve(int textLength) {
+      nRuns = 0;
+      if (n == 0) {
+         return;
+      }
+      int min = textLength;
+      int max = 0;
+      for (int i = 0; i < n; i++) {
+         min = Math.min(min, starts[i]);
+         max = Math.max(max, starts[i] + lengths[i]);
+      }
+      min = Math.max(0, min);
+      max = Math.min(textLength, max);
+      if (min >= max) {
+         return;
+      }
+      int size = max - min;
+      if (paint.length < size) {
+         paint = new byte[size];
+      }
+      else {
+         Arrays.fill(paint, 0, size, (byte) 0);
+      }
+      for (int i = 0; i < n; i++) {
+         int from = Math.max(min, starts[i]) - min;
+         int to = Math.min(max, starts[i] + lengths[i]) - min;
+         if (from < to) {
+            Arrays.fill(paint, from, to, ids[i]);
+         }
+      }
+      int pos = 0;
+      while (pos < size) {
+         byte id = paint[pos];
+         int end = pos + 1;
+         while (end < size && paint[end] == id) {
+            end++;
+         }
+         if (id != 0) {
+            addRun(pos + min, end - pos, sets[id]);
+         }
+         pos = end;
+      }
+      if (paint.length > MAX_KEPT_PAINT_LENGTH) {
+         paint = new byte[0];
+      }
+   }
+
+   /**
+    * Removes all sections and runs
+    */
+   void clear() {
+      n = 0;
+      nRuns = 0;
+      Arrays.fill(runSets, 0, runSets.length, null);
+   }
+
+   //
+   //--private--/
+   //
+
+   private void addRun(int pos, int length, SimpleAttributeSet set) {
+      if (nRuns == runStarts.length) {
+         int size = nRuns * 2;
+         runStarts = Arrays.copyOf(runStarts, size);
+         runLengths = Arrays.copyOf(runLengths, size);
+         runSets = Arrays.copyOf(runSets, size);
+      }
+      runStarts[nRuns] = pos;
+      runLengths[nRuns] = length;
+      runSets[nRuns] = set;
+      nRuns++;
+   }
+
+   private int idOf(SimpleAttributeSet set) {
+      for (int i = 1; i < nSets; i++) {
+         if (sets[i] == set) {
+            return i;
+         }
+      }
+      if (nSets == Byte.MAX_VALUE) {
+         throw new IllegalStateException(
+               "Too many different attribute sets");
+      }
+      if (nSets == sets.length) {
+         sets = Arrays.copyOf(sets, sets.length * 2);
+      }
+      sets[nSets] = set;
+      return nSets++;
+   }
+}
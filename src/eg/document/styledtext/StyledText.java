@@ -11,6 +11,9 @@ public abstract class StyledText {
 
    private final StyledDocument doc;
    private final SimpleAttributeSet normal;
+   private final SpanBuffer spans = new SpanBuffer();
+
+   private int bufferingDepth = 0;
 
    /**
     * @param doc  the document that contains the text
@@ -23,6 +26,17 @@ public abstract class StyledText {
       doc.setParagraphAttributes(0, el.getEndOffset(), normal, false);
    }
 
+   /**
+    * Creates a styled text that is not backed by a document. A
+    * subclass must override the methods that set attributes.
+    *
+    * @param normal  the SimpleAttributeSet for normal text
+    */
+   protected StyledText(SimpleAttributeSet normal) {
+      this.doc = null;
+      this.normal = normal;
+   }
+
    /**
     * Gets this <code>Attributes</code>
     *
@@ -37,6 +51,13 @@ public abstract class StyledText {
     */
    public abstract String text();
 
+   /**
+    * Gets a view of the text that is not copied
+    *
+    * @return  the text as <code>CharSequence</code>
+    */
+   public abstract CharSequence textView();
+
    /**
     * Resets character attributes to the attributes for normal text
     * in the entire in entire text
@@ -64,13 +85,57 @@ public abstract class StyledText {
     * @param set  the attributes applied to the section
     */
    public void setAttributes(int pos, int length, SimpleAttributeSet set) {
-      doc.setCharacterAttributes(pos, length, set, false);
+      if (bufferingDepth > 0) {
+         spans.add(pos, length, set);
+      }
+      else {
+         doc.setCharacterAttributes(pos, length, set, false);
+      }
+   }
+
+   /**
+    * Starts collecting the attributes that are set or reset in a
+    * buffer instead of setting them in the document. Calls may be
+    * nested, each call must be followed by a call of
+    * {@link #applyBuffered}. Has no effect if the text is not backed
+    * by a document
+    */
+   public void startBuffering() {
+      if (doc != null) {
+         bufferingDepth++;
+      }
+   }
+
+   /**
+    * Sets the collected attributes in the document once the
+    * outermost buffering ends. Attributes set later in a section
+    * override attributes set earlier, adjacent sections with equal
+    * attributes are joined and, if the document is created by this
+    * package, all sections are set in one batch.
+    */
+   public void applyBuffered() {
+      if (bufferingDepth == 0 || --bufferingDepth > 0) {
+         return;
+      }
+      spans.resolve(doc.getLength());
+      if (doc instanceof BatchStyledDocument) {
+         ((BatchStyledDocument) doc).addCharacterAttributes(spans.runStarts,
+               spans.runLengths, spans.runSets, spans.nRuns);
+      }
+      else {
+         for (int i = 0; i < spans.nRuns; i++) {
+            doc.setCharacterAttributes(spans.runStarts[i],
+                  spans.runLengths[i], spans.runSets[i], false);
+         }
+      }
+      spans.clear();
    }
 
    /**
     * Gets this document
     *
-    * @return this document
+    * @return this document; null if the text is not backed by a
+    * document
     */
    protected final StyledDocument doc() {
       return doc;
@@ -0,0 +1,160 @@
+package eg.document.styledtext;
+
+/**
+ * A gap buffer that mirrors the text of a document and is updated
+ * by inserting and removing characters at the positions of changes
+ * <p>
+ * The content is copied into a <code>String</code> only when
+ * {@link #toString} is called and that copy is kept until the next
+ * change.
+ */
+final class TextBuffer implements CharSequence {
+
+   private static final int MIN_GAP = 256;
+
+   private char[] buf = new char[MIN_GAP];
+   private int gapStart = 0;
+   private int gapEnd = buf.length;
+   private String copy = "";
+
+   @Override
+   public int length() {
+      return buf.length - gapEnd + gapStart;
+   }
+
+   @Override
+   public char charAt(int i) {
+      if (i < 0 || i >= length()) {
+         throw new IndexOutOfBoundsException("Index: " + i);
+      }
+      return i < gapStart ? buf[i] : buf[i + gapEnd - gapStart];
+   }
+
+   @Override
+   public String subSequence(int start, int end) {
+      if (start < 0 || end > length() || start > end) {
+         throw new IndexOutOfBoundsException(
+               "Start: " + start + ", end: " + end);
+      }
+      if (copy != null) {
+         return copy.substring(start, end);
+      }
+      int gap = gapEnd - gapStart;
+      if (end <= gapStart) {
+         return new String(buf, start, end - start);
+      }
+      else if (start >= gapStart) {
+         return new String(buf, start + gap, end - start);
+      }
+      else {
+         char[] c = new char[end - start];
+         int lenBefore = gapStart - start;
+         System.arraycopy(buf, start, c, 0, lenBefore);
+         System.arraycopy(buf, gapEnd, c, lenBefore, c.length - lenBefore);
+         return new String(c);
+      }
+   }
+
+   /**
+    * Returns the content. The <code>String</code> is kept until
+    * the content changes
+    *
+    * @return  the content
+    */
+   @Override
+   public String toString() {
+      if (copy == null) {
+         copy = subSequence(0, length());
+      }
+      return copy;
+   }
+
+   /**
+    * Replaces the entire content
+    *
+    * @param chars  the array that contains the new content
+    * @param offset  the offset of the content in <code>chars</code>
+    * @param count  the number of characters
+    */
+   void set(char[] chars, int offset, int count) {
+      buf = new char[count + Math.max(MIN_GAP, count >> 3)];
+      System.arraycopy(chars, offset, buf, 0, count);
+      gapStart = count;
+      gapEnd = buf.length;
+      copy = null;
+   }
+
+   /**
+    * Inserts characters
+    *
+    * @param pos  the insert position
+    * @param chars  the array that contains the inserted characters
+    * @param offset  the offset of the characters in <code>chars</code>
+    * @param count  the number of characters
+    */
+   void insert(int pos, char[] chars, int offset, int count) {
+      if (pos < 0 || pos > length()) {
+         throw new IndexOutOfBoundsException("Position: " + pos);
+      }
+      if (count == 0) {
+         return;
+      }
+      ensureGap(count);
+      moveGap(pos);
+      System.arraycopy(chars, offset, buf, gapStart, count);
+      gapStart += count;
+      copy = null;
+   }
+
+   /**
+    * Removes characters
+    *
+    * @param pos  the position where the removal starts
+    * @param count  the number of characters
+    */
+   void remove(int pos, int count) {
+      if (pos < 0 || count < 0 || pos + count > length()) {
+         throw new IndexOutOfBoundsException(
+               "Position: " + pos + ", count: " + count);
+      }
+      if (count == 0) {
+         return;
+      }
+      moveGap(pos);
+      gapEnd += count;
+      copy = null;
+   }
+
+   //
+   //--private--/
+   //
+
+   private void moveGap(int pos) {
+      if (pos < gapStart) {
+         int n = gapStart - pos;
+         System.arraycopy(buf, pos, buf, gapEnd - n, n);
+         gapStart -= n;
+         gapEnd -= n;
+      }
+      else if (pos > gapStart) {
+         int n = pos - gapStart;
+         System.arraycopy(buf, gapEnd, buf, gapStart, n);
+         gapStart += n;
+         gapEnd += n;
+      }
+   }
+
+   private void ensureGap(int count) {
+      if (gapEnd - gapStart >= count) {
+         return;
+      }
+      int length = length();
+      int newSize = Math.max(buf.length * 2, length + count + MIN_GAP);
+      char[] newBuf = new char[newSize];
+      int lenAfter = buf.length - gapEnd;
+      System.arraycopy(buf, 0, newBuf, 0, gapStart);
+      System.arraycopy(buf, gapEnd, newBuf, newSize - lenAfter, lenAfter);
+      buf = newBuf;
+      gapEnd = newSize - lenAfter;
+   }
+}
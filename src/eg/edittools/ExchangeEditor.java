@@ -287,6 +287,11 @@ public class ExchangeEditor implements AddableEditTool {
          enableUndoRedo(canUndo, canRedo);
       }
 
+      @Override
+      public void updateUndoMemoryUsage(long bytes) {
+         // not used
+      }
+
       @Override
       public void updateSelectionState(boolean isSelection) {
          enableCutCopy(isSelection);
@@ -41,8 +41,15 @@ public class Finder implements AddableEditTool {
    private final JButton replaceBt    = new JButton("Replace");
    private final JButton replaceAllBt = new JButton("Replace all");
    private final JButton closeBt      = UIComponents.undecoratedButton();
+   private final JLabel countLb       = new JLabel();
+   private final JCheckBox cBxWord    = new JCheckBox("Only whole word");
+   private final JCheckBox cBxCase    = new JCheckBox("Case sensitive");
+   private final JCheckBox cBxRegex   = new JCheckBox("Regular expression");
+   private final JCheckBox cBxHlAll   = new JCheckBox("Highlight all");
 
    private final TextSearch search = new TextSearch();
+   private final MatchHighlighting hlAll
+         = new MatchHighlighting(this::displayCount);
 
    public Finder() {
       initFinderPnl();
@@ -72,6 +79,7 @@ public class Finder implements AddableEditTool {
    @Override
    public void setDocument(EditableDocument edtDoc) {
       search.setDocument(edtDoc);
+      hlAll.setDocument(edtDoc);
    }
 
    /**
@@ -109,6 +117,8 @@ public class Finder implements AddableEditTool {
       pnl.add(checkBoxPnl());
       pnl.add(Box.createVerticalStrut(10));
       pnl.add(buttonsPnl(searchBt));
+      countLb.setFont(ScreenParams.scaledFontToPlain(countLb.getFont(), 8));
+      pnl.add(countPnl());
       pnl.add(Box.createVerticalStrut(20));
       pnl.add(labelPnl("Replace with:"));
       setSize(replaceTf);
@@ -130,6 +140,13 @@ public class Finder implements AddableEditTool {
       return pnl;
    }
 
+   private JPanel countPnl() {
+      JPanel pnl = new JPanel(new FlowLayout(FlowLayout.LEFT));
+      pnl.add(countLb);
+      setSize(pnl);
+      return pnl;
+   }
+
    private JPanel radioBtPnl() {
       JPanel pnl = new JPanel(new FlowLayout(FlowLayout.LEFT));
       JRadioButton upBt = new JRadioButton("up");
@@ -153,20 +170,13 @@ public class Finder implements AddableEditTool {
 
    private JPanel checkBoxPnl() {
       JPanel pnl = new JPanel(new FlowLayout(FlowLayout.LEFT));
-      JCheckBox cBxWord = new JCheckBox("Only whole word");
-      cBxWord.setFocusable(false);
-      cBxWord.setFont(ScreenParams.scaledFontToPlain(cBxWord.getFont(), 8));
-      cBxWord.addItemListener(e ->
-         search.setRequireWord(e.getStateChange() == ItemEvent.SELECTED));
-
-      JCheckBox cBxCase = new JCheckBox("Case sensitive");
-      cBxCase.setFocusable(false);
-      cBxCase.setFont(ScreenParams.scaledFontToPlain(cBxCase.getFont(), 8));
-      cBxCase.addItemListener(e ->
-         search.setCaseSensitivity(e.getStateChange() == ItemEvent.SELECTED));
-
-      pnl.add(cBxWord);
-      pnl.add(cBxCase);
+      JCheckBox[] cBx = { cBxWord, cBxCase, cBxRegex, cBxHlAll };
+      for (JCheckBox c : cBx) {
+         c.setFocusable(false);
+         c.setFont(ScreenParams.scaledFontToPlain(c.getFont(), 8));
+         c.addItemListener(e -> setSearchOptions());
+         pnl.add(c);
+      }
       pnl.setBorder(UIComponents.titledBorder("Search options"));
       setSize(pnl);
       return pnl;
@@ -189,6 +199,8 @@ public class Finder implements AddableEditTool {
    }
 
    private void setActions() {
+      closeBt.addActionListener(e -> cBxHlAll.setSelected(false));
+
       searchBt.addActionListener(e -> search.searchText(
             inputTf.getText()));
 
@@ -202,6 +214,29 @@ public class Finder implements AddableEditTool {
             inputTf.getText().trim(), replaceTf.getText()));
    }
 
+   private void setSearchOptions() {
+      boolean reqWord = cBxWord.isSelected();
+      boolean isCaseSensitive = cBxCase.isSelected();
+      boolean isRegex = cBxRegex.isSelected();
+      search.setRequireWord(reqWord);
+      search.setCaseSensitivity(isCaseSensitive);
+      search.setRegex(isRegex);
+      hlAll.setOptions(reqWord, isCaseSensitive, isRegex);
+      hlAll.setEnabled(cBxHlAll.isSelected());
+   }
+
+   private void displayCount(int count) {
+      if (!cBxHlAll.isSelected() || inputTf.getText().isEmpty()) {
+         countLb.setText("");
+      }
+      else if (count == -1) {
+         countLb.setText("Invalid regular expression");
+      }
+      else {
+         countLb.setText(count + (count == 1 ? " match" : " matches"));
+      }
+   }
+
    private void enableButtons(boolean b) {
       searchBt.setEnabled(b);
       replaceBt.setEnabled(b);
@@ -218,12 +253,14 @@ public class Finder implements AddableEditTool {
       @Override
       public void insertUpdate(DocumentEvent documentEvent) {
          enableButtons(true);
+         hlAll.setSearchTerm(inputTf.getText());
       }
 
       @Override
       public void removeUpdate(DocumentEvent documentEvent) {
          boolean enable = inputTf.getText().length() > 0;
          enableButtons(enable);
+         hlAll.setSearchTerm(inputTf.getText());
       }
    };
 }
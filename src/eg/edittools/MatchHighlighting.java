@@ -0,0 +1,307 @@
+package eg.edittools;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.JTextPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+
+//--Eadgyth--/
+import eg.document.EditableDocument;
+import eg.filesearch.SearchQuery;
+import eg.utils.FileUtils;
+
+/**
+ * The highlighting of all matches of a search term in the text area
+ * of the <code>EditableDocument</code> that is currently viewed in
+ * the main editor area.
+ * <p>
+ * The matches are searched in a copy of the text in a
+ * <code>SwingWorker</code> and kept as start and end positions in an
+ * int array. Only the matches in the visible section of the text area
+ * are painted and painting follows scrolling. A change of the search
+ * term, of a search option or of the text starts a new search after a
+ * short delay and cancels a search that is in progress.
+ */
+final class MatchHighlighting {
+
+   private static final int RESTART_DELAY = 250;
+   private static final Highlighter.HighlightPainter PAINTER
+         = new DefaultHighlighter.DefaultHighlightPainter(
+               new Color(255, 225, 120));
+
+   private final IntConsumer countUpdate;
+   private final Timer restartTimer;
+   private final List<Object> tags = new ArrayList<>();
+
+   private EditableDocument doc = null;
+   private JTextPane textArea = null;
+   private JViewport viewport = null;
+   private String searchTerm = "";
+   private boolean isEnabled = false;
+   private boolean reqWord = false;
+   private boolean isCaseSensitive = false;
+   private boolean isRegex = false;
+   private int[] ranges = new int[0];
+   private SwingWorker<int[], Void> worker = null;
+   private int generation = 0;
+
+   /**
+    * @param countUpdate  the updating of the number of matches which
+    * receives -1 if the search term is not a valid regular expression
+    */
+   MatchHighlighting(IntConsumer countUpdate) {
+      this.countUpdate = countUpdate;
+      restartTimer = new Timer(RESTART_DELAY, e -> start());
+      restartTimer.setRepeats(false);
+   }
+
+   /**
+    * Sets the <code>EditableDocument</code> which text is searched in
+    *
+    * @param doc  the EditableDocument
+    */
+   void setDocument(EditableDocument doc) {
+      if (textArea != null) {
+         clear();
+         textArea.getDocument().removeDocumentListener(docListener);
+         textArea.removeHierarchyListener(hierarchyListener);
+      }
+      this.doc = doc;
+      textArea = doc.textArea();
+      textArea.getDocument().addDocumentListener(docListener);
+      textArea.addHierarchyListener(hierarchyListener);
+      updateViewport();
+      restart();
+   }
+
+   /**
+    * Enables or disables the highlighting
+    *
+    * @param b  true to enable, false to disable
+    */
+   void setEnabled(boolean b) {
+      isEnabled = b;
+      restart();
+   }
+
+   /**
+    * Sets the search term
+    *
+    * @param searchTerm  the search term
+    */
+   void setSearchTerm(String searchTerm) {
+      this.searchTerm = searchTerm;
+      restart();
+   }
+
+   /**
+    * Sets the search options
+    *
+    * @param reqWord  true to restrict the search to words
+    * @param isCaseSensitive  true for case sensitive search
+    * @param isRegex  true if the search term is a regular expression
+    */
+   void setOptions(boolean reqWord, boolean isCaseSensitive,
+         boolean isRegex) {
+
+      this.reqWord = reqWord;
+      this.isCaseSensitive = isCaseSensitive;
+      this.isRegex = isRegex;
+      restart();
+   }
+
+   //
+   //--private--/
+   //
+
+   private void restart() {
+      clear();
+      if (isEnabled && doc != null && !searchTerm.isEmpty()) {
+         restartTimer.restart();
+      }
+      else {
+         countUpdate.accept(0);
+      }
+   }
+
+   private void clear() {
+      restartTimer.stop();
+      if (worker != null) {
+         worker.cancel(false);
+         worker = null;
+      }
+      generation++;
+      ranges = new int[0];
+      removeTags();
+   }
+
+   private void start() {
+      SearchQuery query;
+      try {
+         query = new SearchQuery(searchTerm, reqWord, isCaseSensitive,
+               isRegex);
+      }
+      catch (PatternSyntaxException e) {
+         countUpdate.accept(-1);
+         return;
+      }
+      int gen = generation;
+      String text = doc.text();
+      worker = new SwingWorker<int[], Void>() {
+
+         @Override
+         protected int[] doInBackground() {
+            return query.matches(text, this::isCancelled);
+         }
+
+         @Override
+         protected void done() {
+            if (gen != generation) {
+               return;
+            }
+            worker = null;
+            try {
+               ranges = get();
+               countUpdate.accept(ranges.length / 2);
+               paintVisible();
+            }
+            catch (CancellationException e) {
+               // a new search was started
+            }
+            catch (InterruptedException | ExecutionException e) {
+               FileUtils.log(e);
+            }
+         }
+      };
+      worker.execute();
+   }
+
+   private void updateViewport() {
+      if (viewport != null) {
+         viewport.removeChangeListener(scrollListener);
+      }
+      viewport = (JViewport) SwingUtilities.getAncestorOfClass(
+            JViewport.class, textArea);
+
+      if (viewport != null) {
+         viewport.addChangeListener(scrollListener);
+      }
+   }
+
+   private void paintVisible() {
+      removeTags();
+      int count = ranges.length / 2;
+      if (count == 0) {
+         return;
+      }
+      Rectangle vis = textArea.getVisibleRect();
+      if (vis.isEmpty()) {
+         return;
+      }
+      int visStart = Math.max(0, textArea.viewToModel(vis.getLocation()));
+      int visEnd = textArea.viewToModel(
+            new Point(vis.x + vis.width, vis.y + vis.height)) + 1;
+
+      Highlighter h = textArea.getHighlighter();
+      for (int i = firstEndingAfter(visStart); i < count; i++) {
+         int start = ranges[2 * i];
+         if (start >= visEnd) {
+            break;
+         }
+         try {
+            tags.add(h.addHighlight(start, ranges[2 * i + 1], PAINTER));
+         }
+         catch (BadLocationException e) {
+            FileUtils.log(e);
+            break;
+         }
+      }
+   }
+
+   private int firstEndingAfter(int pos) {
+      //
+      // the matches do not overlap, so the ends are ascending
+      int lo = 0;
+      int hi = ranges.length / 2;
+      while (lo < hi) {
+         int mid = (lo + hi) >>> 1;
+         if (ranges[2 * mid + 1] > pos) {
+            hi = mid;
+         }
+         else {
+            lo = mid + 1;
+         }
+      }
+      return lo;
+   }
+
+   private void removeTags() {
+      if (tags.isEmpty()) {
+         return;
+      }
+      Highlighter h = textArea.getHighlighter();
+      for (Object tag : tags) {
+         h.removeHighlight(tag);
+      }
+      tags.clear();
+   }
+
+   private final DocumentListener docListener = new DocumentListener() {
+
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+         restart();
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+         restart();
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+         // not used
+      }
+   };
+
+   //
+   // the text area is moved to another scroll pane if wordwrap is
+   // enabled or disabled
+   private final HierarchyListener hierarchyListener = e -> {
+      if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
+         updateViewport();
+         if (ranges.length > 0) {
+            paintVisible();
+         }
+      }
+   };
+
+   private final ChangeListener scrollListener = e -> {
+      if (ranges.length > 0) {
+         paintVisible();
+      }
+   };
+}
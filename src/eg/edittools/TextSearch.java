@@ -2,24 +2,43 @@ package eg.edittools;
 
 import javax.swing.JTextPane;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 //--Eadgyth--/
 import eg.utils.Dialogs;
+import eg.utils.TextUtils;
 import eg.document.EditableDocument;
+import eg.filesearch.SearchQuery;
 
 /**
  * The search and replacemant of text or words in the
  * <code>EditableDocument</code> that is currently viewed in the main
- * editor area
+ * editor area.
+ * <p>
+ * The search term is either a literal text or a regular expression.
+ * A regular expression is compiled once for the same term and
+ * options and is matched directly against the view of the document
+ * text. Matches of length zero are skipped. In the replacement a
+ * reference to a captured group is written as $n or ${name} and
+ * '\' escapes the next character.
  */
 public class TextSearch {
    
    private boolean isUpward = false;
    private boolean reqWord = false;
    private boolean isCaseSensitive = false;
+   private boolean isRegex = false;
    private int pos = 0;
+   private int matchEnd = 0;
 
    private EditableDocument doc;
    private JTextPane textArea;
+   private Pattern pattern = null;
+   private String patternTerm = null;
+   private int patternFlags = 0;
+   private Matcher matcher = null;
    
    /**
     * Sets the <code>EditableDocument</code> which text is searched in
@@ -60,6 +79,16 @@ public class TextSearch {
     public void setCaseSensitivity(boolean b) {
        isCaseSensitive = b;
     }
+
+    /**
+     * Sets the boolean that indicates if the search term is a regular
+     * expression. Default is a literal search term.
+     *
+     * @param b  the boolean value
+     */
+    public void setRegex(boolean b) {
+       isRegex = b;
+    }
    
    /**
     * Searches the next occurrence of the search term and, if found,
@@ -68,10 +97,9 @@ public class TextSearch {
     * @param searchTerm  the search term
     */
    public void searchText(String searchTerm) {
-      String content = doc.text();
-      if (!isCaseSensitive) {
-         content = content.toLowerCase();
-         searchTerm = searchTerm.toLowerCase();
+      CharSequence content = doc.textView();
+      if (!prepare(content, searchTerm)) {
+         return;
       }
       if (isUpward) {
          pos = textArea.getSelectionStart() - 1;
@@ -94,25 +122,23 @@ public class TextSearch {
       if (searchTerm.length() == 0) {
          return;
       }
-      String sel = textArea.getSelectedText();
-      if (sel == null) {
+      CharSequence content = doc.textView();
+      if (!prepare(content, searchTerm)) {
+         return;
+      }
+      int selStart = textArea.getSelectionStart();
+      int selEnd = textArea.getSelectionEnd();
+      //
+      // check selection since a selection may be made "by hand"
+      if (selStart == selEnd || !isMatch(content, searchTerm, selStart,
+            selEnd)) {
+
          searchText(searchTerm);
       }
       else {
-         //
-         // check selection since a selection may be made "by hand"
-         boolean isSearchTermSelected;
-         if (isCaseSensitive) {
-            isSearchTermSelected = sel.equals(searchTerm);
-         }
-         else {
-            isSearchTermSelected = sel.equalsIgnoreCase(searchTerm);
-         }
-         if (!isSearchTermSelected) {
-            searchText(searchTerm);
-         }
-         else {
-            doc.replace(pos, searchTerm.length(), replacement, true);
+         String s = replacement(replacement);
+         if (s != null) {
+            doc.replace(selStart, selEnd - selStart, s, true);
             searchText(searchTerm);
          }
       }
@@ -128,28 +154,36 @@ public class TextSearch {
       if (searchTerm.length() == 0) {
          return;
       }
-      String content = doc.text();
-      if (!isCaseSensitive) {
-         content = content.toLowerCase();
-         searchTerm = searchTerm.toLowerCase();
+      //
+      // the replaced section from the first to the last match is built
+      // while the matches are found and is then replaced at once as one
+      // undoable unit
+      CharSequence content = doc.textView();
+      if (!prepare(content, searchTerm)) {
+         return;
       }
-      doc.enableUndoMerging(true);
+      StringBuilder sb = new StringBuilder();
+      int start = -1;
+      int last = -1;
       int count = 0;
-      int diff = searchTerm.length() - replacement.length();
-      int sumDiff = 0;
-      int ind = 0;
+      int ind = nextIndex(content, searchTerm, 0);
       while (ind != -1) {
-         ind = nextIndex(content, searchTerm, ind);
-         if (ind != -1) {
-            count++;
-            doc.replace(ind - sumDiff, searchTerm.length(), replacement, false);
-            sumDiff += diff;
-            textArea.setCaretPosition(ind - sumDiff + diff + replacement.length());
-            ind++;
+         if (start == -1) {
+            start = ind;
+            last = ind;
+         }
+         String s = replacement(replacement);
+         if (s == null) {
+            return;
          }
+         sb.append(content, last, ind).append(s);
+         last = matchEnd;
+         count++;
+         ind = nextIndex(content, searchTerm, matchEnd);
       }
-      doc.enableUndoMerging(false);      
       if (count > 0) {
+         doc.replace(start, last - start, sb.toString(), true);
+         textArea.setCaretPosition(start + sb.length());
          Dialogs.infoMessage("\"" + searchTerm + "\" was replaced "
                + count + " times.", null);
       }
@@ -163,7 +197,36 @@ public class TextSearch {
    //--private--/
    //       
    
-   private void searchTextDown(String content, String searchTerm) {
+   private boolean prepare(CharSequence content, String searchTerm) {
+      if (!isRegex) {
+         return true;
+      }
+      int flags = isCaseSensitive ? 0
+            : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+      if (!searchTerm.equals(patternTerm) || flags != patternFlags) {
+         try {
+            pattern = Pattern.compile(searchTerm, flags);
+         }
+         catch (PatternSyntaxException e) {
+            Dialogs.errorMessage(e.getMessage(), "Invalid regular expression");
+            textArea.requestFocusInWindow();
+            return false;
+         }
+         patternTerm = searchTerm;
+         patternFlags = flags;
+         matcher = null;
+      }
+      if (matcher == null) {
+         matcher = pattern.matcher(content);
+      }
+      else {
+         matcher.reset(content);
+      }
+      return true;
+   }
+
+   private void searchTextDown(CharSequence content, String searchTerm) {
       int ind = nextIndex(content, searchTerm, pos);
       if (ind == -1 & pos > 0) {
          resetSearchStart();
@@ -171,7 +234,7 @@ public class TextSearch {
       }
       if (ind != -1) {
          pos = ind;
-         textArea.select(pos, pos + searchTerm.length());
+         textArea.select(pos, matchEnd);
       }
       else {
          Dialogs.infoMessage(notFoundMsg(searchTerm), null);
@@ -179,17 +242,35 @@ public class TextSearch {
       }
    }
 
-   private int nextIndex(String content, String searchTerm, int pos) {
-      int index = content.indexOf(searchTerm, pos);
+   private int nextIndex(CharSequence content, String searchTerm, int pos) {
+      if (isRegex) {
+         return nextMatch(content, pos);
+      }
+      int index = TextUtils.indexOf(content, searchTerm, pos, !isCaseSensitive);
       if (reqWord) {
          while (index != -1 && !isWord(content, searchTerm, index)) {
-            index = content.indexOf(searchTerm, index + 1);
+            index = TextUtils.indexOf(content, searchTerm, index + 1,
+                  !isCaseSensitive);
          }
       }
+      matchEnd = index + searchTerm.length();
       return index;
    }
+
+   private int nextMatch(CharSequence content, int pos) {
+      int i = Math.max(pos, 0);
+      while (i <= content.length() && matcher.find(i)) {
+         int start = matcher.start();
+         if (isValidMatch(content, start, matcher.end())) {
+            matchEnd = matcher.end();
+            return start;
+         }
+         i = start + 1;
+      }
+      return -1;
+   }
    
-   private void searchTextUp(String content, String searchTerm) {
+   private void searchTextUp(CharSequence content, String searchTerm) {
       int ind = lastIndex(content, searchTerm, pos);
       if (ind == -1 & pos < content.length() - 1) {
          resetSearchStart();
@@ -197,7 +278,7 @@ public class TextSearch {
       }
       if (ind != -1) {
          pos = ind;
-         textArea.select(pos, pos + searchTerm.length());
+         textArea.select(pos, matchEnd);
       }
       else {
          Dialogs.infoMessage(notFoundMsg(searchTerm), null);
@@ -205,20 +286,88 @@ public class TextSearch {
       }
    }
 
-   private int lastIndex(String content, String searchTerm, int pos) {
-      int index = content.lastIndexOf(searchTerm, pos);
+   private int lastIndex(CharSequence content, String searchTerm, int pos) {
+      if (isRegex) {
+         return lastMatch(content, pos);
+      }
+      int index = TextUtils.lastIndexOf(content, searchTerm, pos,
+            !isCaseSensitive);
+
       if (reqWord) {
          while (index != -1 && !isWord(content, searchTerm, index)) {
-            index = content.lastIndexOf(searchTerm, index - 1);
+            index = TextUtils.lastIndexOf(content, searchTerm, index - 1,
+                  !isCaseSensitive);
          }
       }
+      matchEnd = index + searchTerm.length();
+      return index;
+   }
+
+   private int lastMatch(CharSequence content, int pos) {
+      //
+      // a regular expression is matched in forward direction, so the
+      // last match that starts at or before pos is searched from the
+      // start and then found again to set the matcher to the match.
+      // The matches do not overlap like those of a downward search
+      int index = -1;
+      int i = 0;
+      while (i <= pos && i <= content.length() && matcher.find(i)) {
+         int start = matcher.start();
+         int end = matcher.end();
+         if (start > pos) {
+            break;
+         }
+         if (isValidMatch(content, start, end)) {
+            index = start;
+            i = end;
+         }
+         else {
+            i = start + 1;
+         }
+      }
+      if (index != -1) {
+         matcher.find(index);
+         matchEnd = matcher.end();
+      }
       return index;
    }
 
-   private boolean isWord(String content, String searchTerm, int pos) {
+   private boolean isValidMatch(CharSequence content, int start, int end) {
+      return end > start
+            && (!reqWord || eg.syntax.SyntaxUtils.isWord(content, start,
+                  end - start, null));
+   }
+
+   private boolean isWord(CharSequence content, String searchTerm, int pos) {
       return eg.syntax.SyntaxUtils.isWord(content, pos, searchTerm.length(), null);
    }
-   
+
+   private boolean isMatch(CharSequence content, String searchTerm, int start,
+         int end) {
+
+      if (isRegex) {
+         return matcher.find(start) && matcher.start() == start
+               && matcher.end() == end;
+      }
+      String sel = content.subSequence(start, end).toString();
+      return isCaseSensitive ? sel.equals(searchTerm)
+            : sel.equalsIgnoreCase(searchTerm);
+   }
+
+   private String replacement(String replacement) {
+      if (!isRegex) {
+         return replacement;
+      }
+      try {
+         return SearchQuery.expandedReplacement(replacement, matcher);
+      }
+      catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+         Dialogs.errorMessage(e.getMessage(), "Invalid replacement");
+         textArea.requestFocusInWindow();
+         return null;
+      }
+   }
+
    private void resetSearchStart() {
       pos = isUpward ? doc.textLength() - 1 : 0;
    }
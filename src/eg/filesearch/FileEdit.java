@@ -0,0 +1,217 @@
+package eg.filesearch;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+//--Eadgyth--/
+import eg.document.FileContentWriter;
+import eg.document.FileFormat;
+
+/**
+ * The replacement of matches in the text of a file.
+ * <p>
+ * The edit is computed from the content of the file or, if the file
+ * is open in a document, from the text of the document. The replaced
+ * section of the text extends from the start of the first to the end
+ * of the last match.
+ */
+public final class FileEdit {
+
+   private final File file;
+   private final String text;
+   private final String editedText;
+   private final int start;
+   private final int end;
+   private final int count;
+   private final FileFormat format;
+   private final long lastModified;
+   private final long size;
+
+   /**
+    * Creates a <code>FileEdit</code> for the content of a file
+    *
+    * @param file  the file
+    * @param text  the text read from the file
+    * @param editedText  the text in which the matches are replaced
+    * @param start  the start position of the first match
+    * @param end  the end position of the last match
+    * @param count  the number of matches
+    * @param format  the FileFormat of the file
+    * @param lastModified  the time of the last modification of the
+    * file before it was read
+    * @param size  the size of the file before it was read
+    */
+   FileEdit(File file, String text, String editedText, int start, int end,
+         int count, FileFormat format, long lastModified, long size) {
+
+      this.file = file;
+      this.text = text;
+      this.editedText = editedText;
+      this.start = start;
+      this.end = end;
+      this.count = count;
+      this.format = format;
+      this.lastModified = lastModified;
+      this.size = size;
+   }
+
+   /**
+    * Creates a <code>FileEdit</code> for the text of a document
+    *
+    * @param file  the file of the document
+    * @param text  the text of the document
+    * @param editedText  the text in which the matches are replaced
+    * @param start  the start position of the first match
+    * @param end  the end position of the last match
+    * @param count  the number of matches
+    */
+   FileEdit(File file, String text, String editedText, int start, int end,
+         int count) {
+
+      this(file, text, editedText, start, end, count, null, 0, 0);
+   }
+
+   /**
+    * Returns the file
+    *
+    * @return  the file
+    */
+   public File file() {
+      return file;
+   }
+
+   /**
+    * Returns if the edit was computed from the text of a document
+    *
+    * @return  true if computed from the text of a document, false
+    * if computed from the content of the file
+    */
+   public boolean isDocumentText() {
+      return format == null;
+   }
+
+   /**
+    * Returns the number of replaced matches
+    *
+    * @return  the number
+    */
+   public int count() {
+      return count;
+   }
+
+   /**
+    * Returns the text from which the edit was computed
+    *
+    * @return  the text
+    */
+   public String text() {
+      return text;
+   }
+
+   /**
+    * Returns the start position of the replaced section
+    *
+    * @return  the position
+    */
+   public int start() {
+      return start;
+   }
+
+   /**
+    * Returns the length of the replaced section
+    *
+    * @return  the length
+    */
+   public int length() {
+      return end - start;
+   }
+
+   /**
+    * Returns the text that replaces the section
+    *
+    * @return  the text
+    */
+   public String replacedSection() {
+      return editedText.substring(start,
+            editedText.length() - (text.length() - end));
+   }
+
+   /**
+    * Returns if the file is unchanged since it was read. Always false
+    * if the edit was computed from the text of a document
+    *
+    * @return  true if unchanged, false otherwise
+    */
+   public boolean isFileUnchanged() {
+      return format != null && file.lastModified() == lastModified
+            && file.length() == size;
+   }
+
+   /**
+    * Writes the edited texts of the specified edits to their files.
+    * The texts are first written to temporary files in parallel and
+    * the files are replaced only if all temporary files were written
+    *
+    * @param edits  the list of FileEdit that each are computed from
+    * the content of the file
+    * @throws IOException  if a file could not be written. No file is
+    * changed if a temporary file could not be written
+    */
+   public static void writeAll(List<FileEdit> edits) throws IOException {
+      for (FileEdit e : edits) {
+         if (e.isDocumentText()) {
+            throw new IllegalArgumentException(
+                  e.file.getName() + " is edited in a document");
+         }
+      }
+      Path[] tmp = new Path[edits.size()];
+      AtomicReference<IOException> error = new AtomicReference<>();
+      IntStream.range(0, tmp.length).parallel().forEach(i -> {
+         if (error.get() != null) {
+            return;
+         }
+         FileEdit e = edits.get(i);
+         try {
+            tmp[i] = FileContentWriter.writeTemporary(e.editedText, e.file,
+                  e.format);
+         }
+         catch (IOException ex) {
+            error.compareAndSet(null, ex);
+         }
+      });
+      if (error.get() != null) {
+         deleteAll(tmp, 0);
+         throw error.get();
+      }
+      for (int i = 0; i < tmp.length; i++) {
+         try {
+            FileContentWriter.commit(tmp[i], edits.get(i).file);
+         }
+         catch (IOException e) {
+            deleteAll(tmp, i + 1);
+            throw new IOException(edits.get(i).file.getName()
+                  + " could not be replaced after " + i + " of "
+                  + tmp.length + " files were replaced", e);
+         }
+      }
+   }
+
+   //
+   //--private--/
+   //
+
+   private static void deleteAll(Path[] tmp, int from) throws IOException {
+      for (int i = from; i < tmp.length; i++) {
+         if (tmp[i] != null) {
+            Files.deleteIfExists(tmp[i]);
+         }
+      }
+   }
+}
@@ -0,0 +1,124 @@
+package eg.filesearch;
+
+import java.io.File;
+
+/**
+ * A match of a search term in a file
+ */
+public final class FileMatch {
+
+   private final File file;
+   private final int line;
+   private final int start;
+   private final int end;
+   private final String lineText;
+   private final int lineStart;
+   private final String replacement;
+
+   /**
+    * @param file  the file
+    * @param line  the number of the line that contains the match,
+    * beginning at 1
+    * @param start  the start position of the match in the text of
+    * the file
+    * @param end  the end position of the match
+    * @param lineText  the text of the line
+    * @param lineStart  the position where the line starts
+    * @param replacement  the replacement for the match; may be null
+    */
+   public FileMatch(File file, int line, int start, int end, String lineText,
+         int lineStart, String replacement) {
+
+      this.file = file;
+      this.line = line;
+      this.start = start;
+      this.end = end;
+      this.lineText = lineText;
+      this.lineStart = lineStart;
+      this.replacement = replacement;
+   }
+
+   /**
+    * Returns the file
+    *
+    * @return  the file
+    */
+   public File file() {
+      return file;
+   }
+
+   /**
+    * Returns the number of the line that contains the match
+    *
+    * @return  the line number, beginning at 1
+    */
+   public int line() {
+      return line;
+   }
+
+   /**
+    * Returns the start position of the match. Positions refer to the
+    * text of the file in which line separators are "\n"
+    *
+    * @return  the position
+    */
+   public int start() {
+      return start;
+   }
+
+   /**
+    * Returns the end position of the match
+    *
+    * @return  the position
+    */
+   public int end() {
+      return end;
+   }
+
+   /**
+    * Returns the text of the line that contains the match. A long
+    * line may be cut off after the match
+    *
+    * @return  the text
+    */
+   public String lineText() {
+      return lineText;
+   }
+
+   /**
+    * Returns the position where the line that contains the match
+    * starts
+    *
+    * @return  the position
+    */
+   public int lineStart() {
+      return lineStart;
+   }
+
+   /**
+    * Returns the replacement for the match
+    *
+    * @return  the replacement; null if the match is not replaced
+    */
+   public String replacement() {
+      return replacement;
+   }
+
+   /**
+    * Returns the text of the line that contains the match in which
+    * the match is replaced. A match that continues in following lines
+    * is replaced up to the end of the line
+    *
+    * @return  the text; the text of the line if the match is not
+    * replaced
+    */
+   public String replacedLineText() {
+      if (replacement == null) {
+         return lineText;
+      }
+      int from = start - lineStart;
+      int to = Math.min(end - lineStart, lineText.length());
+      return lineText.substring(0, from) + replacement
+            + lineText.substring(to);
+   }
+}
@@ -0,0 +1,478 @@
+package eg.filesearch;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+//--Eadgyth--/
+import eg.document.FileContentReader;
+import eg.document.FileFormat;
+import eg.utils.FileUtils;
+
+/**
+ * The search of a <code>SearchQuery</code> in the files below a root
+ * directory.
+ * <p>
+ * The directory tree is walked in a background thread which passes
+ * each file to a pool of threads as soon as it is found, so the files
+ * are searched in parallel while the walk goes on. Hidden
+ * directories, files larger than {@link #MAX_FILE_SIZE} and files
+ * that contain a null character are skipped. The matches are
+ * reported for each file as soon as the file is searched. The search
+ * ends when {@link #MAX_MATCHES} matches are found or if it is
+ * cancelled.
+ * <p>
+ * Files that are open in documents may be searched in the texts of
+ * the documents instead of their content. If a replacement is set a
+ * {@link FileEdit} is computed for each file that contains matches.
+ * <p>
+ * If a {@link TrigramIndex} is set the index is updated instead of
+ * walking the tree and only the files that the index narrows down
+ * are searched, along with the files of the documents.
+ */
+public final class FilesSearch {
+
+   /**
+    * The maximum size in bytes of a searched file
+    */
+   public static final long MAX_FILE_SIZE = 8L << 20;
+
+   /**
+    * The maximum number of matches
+    */
+   public static final int MAX_MATCHES = 10000;
+
+   private static final int MAX_LINE_LENGTH = 300;
+
+   private final Path root;
+   private final Path excludedDir;
+   private final SearchQuery query;
+   private final AtomicBoolean isCancelled = new AtomicBoolean();
+   private final AtomicInteger pending = new AtomicInteger(1);
+   private final AtomicInteger nFiles = new AtomicInteger();
+   private final AtomicInteger nMatches = new AtomicInteger();
+   private final Queue<FileEdit> edits = new ConcurrentLinkedQueue<>();
+   private final Queue<File> skipped = new ConcurrentLinkedQueue<>();
+
+   private Map<File, String> documentTexts = Collections.emptyMap();
+   private TrigramIndex index = null;
+   private String replacement = null;
+   private volatile String replacementError = null;
+   private ForkJoinPool pool = null;
+   private Consumer<List<FileMatch>> found;
+   private Runnable done;
+
+   /**
+    * @param root  the root directory
+    * @param excludedDir  the directory relative to the root that is
+    * excluded from the search; may be null or empty
+    * @param query  the SearchQuery
+    */
+   public FilesSearch(String root, String excludedDir, SearchQuery query) {
+      this.root = new File(root).toPath().toAbsolutePath().normalize();
+      if (excludedDir == null || excludedDir.isEmpty()) {
+         this.excludedDir = null;
+      }
+      else {
+         this.excludedDir = this.root.resolve(excludedDir).normalize();
+      }
+      this.query = query;
+   }
+
+   /**
+    * Sets the texts of documents that are searched instead of the
+    * content of the files of the documents
+    *
+    * @param documentTexts  the map of the texts whose keys are the
+    * absolute and normalized files
+    */
+   public void setDocumentTexts(Map<File, String> documentTexts) {
+      checkNotStarted();
+      this.documentTexts = documentTexts;
+   }
+
+   /**
+    * Sets the index which narrows the searched files
+    *
+    * @param index  the TrigramIndex whose root directory is the root
+    * directory of this search
+    */
+   public void setIndex(TrigramIndex index) {
+      checkNotStarted();
+      if (!index.root().equals(root)) {
+         throw new IllegalArgumentException(
+               "The index is not for the root directory " + root);
+      }
+      this.index = index;
+   }
+
+   /**
+    * Sets the replacement for the matches. A {@link FileEdit} is then
+    * computed for each file that contains matches
+    *
+    * @param replacement  the replacement which, if the search term
+    * is a regular expression, may contain references to groups
+    * @see SearchQuery#expandedReplacement
+    */
+   public void setReplacement(String replacement) {
+      checkNotStarted();
+      this.replacement = replacement;
+   }
+
+   /**
+    * Starts the search. The specified consumer and runnable are called
+    * in a thread other than the event dispatch thread
+    *
+    * @param found  the Consumer that receives the list of the matches
+    * in a file
+    * @param done  the Runnable that is run when the search has ended
+    * or was cancelled
+    */
+   public void start(Consumer<List<FileMatch>> found, Runnable done) {
+      checkNotStarted();
+      this.found = found;
+      this.done = done;
+      pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+      Thread walker = new Thread(this::walk, "FilesSearch");
+      walker.setDaemon(true);
+      walker.start();
+   }
+
+   /**
+    * Cancels the search. Files that are being searched are not
+    * reported anymore
+    */
+   public void cancel() {
+      isCancelled.set(true);
+   }
+
+   /**
+    * Returns if the search was cancelled
+    *
+    * @return  true if cancelled, false otherwise
+    */
+   public boolean isCancelled() {
+      return isCancelled.get();
+   }
+
+   /**
+    * Returns if the search ended since the maximum number of matches
+    * was found
+    *
+    * @return  true if the maximum was found, false otherwise
+    */
+   public boolean isMaxMatches() {
+      return nMatches.get() >= MAX_MATCHES;
+   }
+
+   /**
+    * Returns the message of an error in the replacement which ended
+    * the search
+    *
+    * @return  the message; null if no error occured
+    */
+   public String replacementError() {
+      return replacementError;
+   }
+
+   /**
+    * Returns the edits of the files that contain matches if a
+    * replacement is set. The list is complete only after the search
+    * ended
+    *
+    * @return  the list of FileEdit
+    */
+   public List<FileEdit> edits() {
+      return new ArrayList<>(edits);
+   }
+
+   /**
+    * Returns the files that contain matches but for which no
+    * {@link FileEdit} is computed because their content cannot be
+    * decoded without loss. The matches in these files are found
+    * without replacements
+    *
+    * @return  the list of files
+    */
+   public List<File> skippedFiles() {
+      return new ArrayList<>(skipped);
+   }
+
+   /**
+    * Returns the number of searched files
+    *
+    * @return  the number
+    */
+   public int nSearchedFiles() {
+      return nFiles.get();
+   }
+
+   /**
+    * Returns if a directory is not searched, which is the case for
+    * a hidden directory and the excluded directory
+    *
+    * @param dir  the directory
+    * @param root  the root directory
+    * @param excludedDir  the excluded directory; may be null
+    * @return  true if not searched, false otherwise
+    */
+   static boolean isSkippedDirectory(Path dir, Path root, Path excludedDir) {
+      return dir.equals(excludedDir)
+            || (!dir.equals(root)
+               && dir.getFileName().toString().startsWith("."));
+   }
+
+   /**
+    * Returns if a file is searched, which is the case for a regular
+    * file that is not larger than {@link #MAX_FILE_SIZE}
+    *
+    * @param attrs  the attributes of the file
+    * @return  true if searched, false otherwise
+    */
+   static boolean isSearchedFile(BasicFileAttributes attrs) {
+      return attrs.isRegularFile() && attrs.size() <= MAX_FILE_SIZE;
+   }
+
+   /**
+    * Reads the text from the specified <code>FileContentReader</code>
+    *
+    * @param reader  the FileContentReader
+    * @param isCancelled  the BooleanSupplier that is asked between the
+    * read chunks if the reading is cancelled
+    * @return  the text; null if the text contains a null character or
+    * the reading was cancelled
+    * @throws IOException  if the file cannot be read
+    */
+   static String readText(FileContentReader reader,
+         BooleanSupplier isCancelled) throws IOException {
+
+      StringBuilder sb = new StringBuilder();
+      String chunk;
+      while ((chunk = reader.next()) != null) {
+         if (isCancelled.getAsBoolean() || chunk.indexOf('\0') != -1) {
+            return null;
+         }
+         sb.append(chunk);
+      }
+      return sb.toString();
+   }
+
+   //
+   //--private--/
+   //
+
+   private void walk() {
+      try {
+         if (index != null) {
+            searchIndexed();
+         }
+         else {
+            Files.walkFileTree(root, visitor);
+         }
+      }
+      catch (IOException e) {
+         FileUtils.log(e);
+      }
+      finally {
+         taskDone();
+      }
+   }
+
+   private void searchIndexed() {
+      index.update(excludedDir, this::isStopped);
+      Set<File> files = new LinkedHashSet<>(index.candidates(query));
+      for (File f : documentTexts.keySet()) {
+         Path p = f.toPath();
+         if (p.startsWith(root)
+               && (excludedDir == null || !p.startsWith(excludedDir))) {
+
+            files.add(f);
+         }
+      }
+      for (File f : files) {
+         if (isStopped()) {
+            break;
+         }
+         submit(f);
+      }
+   }
+
+   private void submit(File f) {
+      pending.incrementAndGet();
+      pool.execute(() -> search(f));
+   }
+
+   private void checkNotStarted() {
+      if (pool != null) {
+         throw new IllegalStateException("The search was already started");
+      }
+   }
+
+   private void taskDone() {
+      if (pending.decrementAndGet() == 0) {
+         pool.shutdown();
+         done.run();
+      }
+   }
+
+   private void search(File f) {
+      try {
+         if (isStopped()) {
+            return;
+         }
+         String text = documentTexts.get(f);
+         FileFormat format = null;
+         long lastModified = 0;
+         long size = 0;
+         boolean isLossy = false;
+         if (text == null) {
+            lastModified = f.lastModified();
+            size = f.length();
+            try (FileContentReader reader = new FileContentReader(f)) {
+               text = readText(reader, isCancelled::get);
+               format = reader.format();
+               isLossy = reader.isLossy();
+            }
+         }
+         if (text == null) {
+            return;
+         }
+         nFiles.incrementAndGet();
+         int[] m = query.matches(text, this::isStopped);
+         if (m.length == 0 || isStopped()) {
+            return;
+         }
+         int count = m.length / 2;
+         int total = nMatches.addAndGet(count);
+         if (total > MAX_MATCHES) {
+            count = Math.max(0, count - (total - MAX_MATCHES));
+         }
+         if (count == 0) {
+            return;
+         }
+         String[] r = null;
+         if (replacement != null && isLossy) {
+            skipped.add(f);
+         }
+         else if (replacement != null) {
+            r = query.replacements(text, m, replacement);
+            String edited = editedText(text, m, r);
+            int end = m[m.length - 1];
+            if (format != null) {
+               edits.add(new FileEdit(f, text, edited, m[0], end, r.length,
+                     format, lastModified, size));
+            }
+            else {
+               edits.add(new FileEdit(f, text, edited, m[0], end, r.length));
+            }
+         }
+         found.accept(fileMatches(f, text, m, r, count));
+      }
+      catch (IOException e) {
+         //
+         // e.g. a file that is not readable or was deleted after the walk
+      }
+      catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+         replacementError = e.getMessage();
+         isCancelled.set(true);
+      }
+      finally {
+         taskDone();
+      }
+   }
+
+   private String editedText(String text, int[] m, String[] r) {
+      StringBuilder sb = new StringBuilder(text.length());
+      int last = 0;
+      for (int i = 0; i < r.length; i++) {
+         sb.append(text, last, m[2 * i]).append(r[i]);
+         last = m[2 * i + 1];
+      }
+      sb.append(text, last, text.length());
+      return sb.toString();
+   }
+
+   private boolean isStopped() {
+      return isCancelled.get() || nMatches.get() >= MAX_MATCHES;
+   }
+
+   private List<FileMatch> fileMatches(File f, String text, int[] m,
+         String[] r, int count) {
+
+      List<FileMatch> list = new ArrayList<>(count);
+      int line = 1;
+      int lineStart = 0;
+      int pos = 0;
+      for (int i = 0; i < count; i++) {
+         int start = m[2 * i];
+         for (; pos < start; pos++) {
+            if (text.charAt(pos) == '\n') {
+               line++;
+               lineStart = pos + 1;
+            }
+         }
+         int lineEnd = text.indexOf('\n', start);
+         if (lineEnd == -1) {
+            lineEnd = text.length();
+         }
+         lineEnd = Math.min(lineEnd,
+               Math.max(m[2 * i + 1], lineStart + MAX_LINE_LENGTH));
+
+         list.add(new FileMatch(f, line, start, m[2 * i + 1],
+               text.substring(lineStart, lineEnd), lineStart,
+               r != null ? r[i] : null));
+      }
+      return list;
+   }
+
+   private final SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir,
+            BasicFileAttributes attrs) {
+
+         if (isStopped()) {
+            return FileVisitResult.TERMINATE;
+         }
+         if (isSkippedDirectory(dir, root, excludedDir)) {
+            return FileVisitResult.SKIP_SUBTREE;
+         }
+         return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+         if (isStopped()) {
+            return FileVisitResult.TERMINATE;
+         }
+         if (isSearchedFile(attrs)) {
+            submit(file.toFile());
+         }
+         return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+         return FileVisitResult.CONTINUE;
+      }
+   };
+}
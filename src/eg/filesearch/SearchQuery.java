@@ -0,0 +1,271 @@
+package eg.filesearch;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//--Eadgyth--/
+import eg.syntax.SyntaxUtils;
+import eg.utils.TextUtils;
+
+/**
+ * A search term and the options for its search.
+ * <p>
+ * The search term is either a literal text or a regular expression.
+ * Matches of length zero are skipped and the found matches do not
+ * overlap.
+ */
+public final class SearchQuery {
+
+   private final String term;
+   private final boolean reqWord;
+   private final boolean isCaseSensitive;
+   private final Pattern pattern;
+
+   /**
+    * @param term  the search term
+    * @param reqWord  true to restrict the search to words
+    * @param isCaseSensitive  true for case sensitive search
+    * @param isRegex  true if the search term is a regular expression
+    * @throws IllegalArgumentException  if the search term is empty
+    * or, if isRegex is true, is not a valid regular expression, in
+    * which case the exception is a
+    * <code>java.util.regex.PatternSyntaxException</code>
+    */
+   public SearchQuery(String term, boolean reqWord, boolean isCaseSensitive,
+         boolean isRegex) {
+
+      if (term.isEmpty()) {
+         throw new IllegalArgumentException("The search term is empty");
+      }
+      this.term = term;
+      this.reqWord = reqWord;
+      this.isCaseSensitive = isCaseSensitive;
+      if (isRegex) {
+         int flags = isCaseSensitive ? 0
+               : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+         pattern = Pattern.compile(term, flags);
+      }
+      else {
+         pattern = null;
+      }
+   }
+
+   /**
+    * Returns the search term
+    *
+    * @return  the search term
+    */
+   public String term() {
+      return term;
+   }
+
+   /**
+    * Returns if the search is restricted to words
+    *
+    * @return  true if restricted, false otherwise
+    */
+   public boolean isRequireWord() {
+      return reqWord;
+   }
+
+   /**
+    * Returns if the search is case sensitive
+    *
+    * @return  true if case sensitive, false otherwise
+    */
+   public boolean isCaseSensitive() {
+      return isCaseSensitive;
+   }
+
+   /**
+    * Returns if the search term is a regular expression
+    *
+    * @return  true if a regular expression, false otherwise
+    */
+   public boolean isRegex() {
+      return pattern != null;
+   }
+
+   /**
+    * Returns the compiled search term if it is a regular expression
+    *
+    * @return  the Pattern; null if the search term is literal
+    */
+   public Pattern pattern() {
+      return pattern;
+   }
+
+   /**
+    * Finds the matches in the specified text
+    *
+    * @param text  the text
+    * @param isCancelled  the BooleanSupplier that is asked between
+    * the matches if the search is cancelled
+    * @return  the start and end positions of the matches one after
+    * the other in ascending order. The array is incomplete if the
+    * search was cancelled
+    */
+   public int[] matches(CharSequence text, BooleanSupplier isCancelled) {
+      if (pattern != null) {
+         return regexMatches(text, isCancelled);
+      }
+      else {
+         return literalMatches(text, isCancelled);
+      }
+   }
+
+   /**
+    * Returns the replacements for the specified matches
+    *
+    * @param text  the text
+    * @param matches  the start and end positions of matches in the
+    * text as returned by {@link #matches}
+    * @param replacement  the replacement which, if the search term
+    * is a regular expression, may contain references to groups
+    * @return  the replacements in the order of the matches
+    * @see #expandedReplacement
+    */
+   public String[] replacements(CharSequence text, int[] matches,
+         String replacement) {
+
+      String[] res = new String[matches.length / 2];
+      if (pattern == null) {
+         Arrays.fill(res, replacement);
+         return res;
+      }
+      Matcher m = pattern.matcher(text);
+      for (int i = 0; i < res.length; i++) {
+         m.find(matches[2 * i]);
+         res[i] = expandedReplacement(replacement, m);
+      }
+      return res;
+   }
+
+   /**
+    * Returns the specified replacement in which references to groups
+    * captured by the specified <code>Matcher</code> are expanded. A
+    * reference is written as $n or ${name} and '\' escapes the next
+    * character
+    *
+    * @param replacement  the replacement
+    * @param matcher  the Matcher which is set to a match
+    * @return  the expanded replacement
+    * @throws IllegalArgumentException  if the replacement has a
+    * syntax error or refers to a group name that does not exist
+    * @throws IndexOutOfBoundsException  if the replacement refers to
+    * a group number that does not exist
+    */
+   public static String expandedReplacement(String replacement,
+         Matcher matcher) {
+
+      StringBuilder sb = new StringBuilder();
+      int n = replacement.length();
+      int i = 0;
+      while (i < n) {
+         char c = replacement.charAt(i++);
+         if (c == '\\') {
+            if (i == n) {
+               throw new IllegalArgumentException(
+                     "The character to be escaped is missing");
+            }
+            sb.append(replacement.charAt(i++));
+         }
+         else if (c == '$') {
+            if (i == n) {
+               throw new IllegalArgumentException(
+                     "The group reference is missing");
+            }
+            String group;
+            if (replacement.charAt(i) == '{') {
+               int close = replacement.indexOf('}', i);
+               if (close == -1) {
+                  throw new IllegalArgumentException(
+                        "The group name is missing the closing '}'");
+               }
+               group = matcher.group(replacement.substring(i + 1, close));
+               i = close + 1;
+            }
+            else {
+               int g = Character.digit(replacement.charAt(i), 10);
+               if (g == -1) {
+                  throw new IllegalArgumentException(
+                        "Illegal group reference: $" + replacement.charAt(i));
+               }
+               i++;
+               while (i < n) {
+                  int d = Character.digit(replacement.charAt(i), 10);
+                  if (d == -1 || g * 10 + d > matcher.groupCount()) {
+                     break;
+                  }
+                  g = g * 10 + d;
+                  i++;
+               }
+               group = matcher.group(g);
+            }
+            if (group != null) {
+               sb.append(group);
+            }
+         }
+         else {
+            sb.append(c);
+         }
+      }
+      return sb.toString();
+   }
+
+   //
+   //--private--/
+   //
+
+   private int[] literalMatches(CharSequence text,
+         BooleanSupplier isCancelled) {
+
+      int[] res = new int[64];
+      int n = 0;
+      int i = TextUtils.indexOf(text, term, 0, !isCaseSensitive);
+      while (i != -1 && !isCancelled.getAsBoolean()) {
+         if (!reqWord || SyntaxUtils.isWord(text, i, term.length(), null)) {
+            if (n == res.length) {
+               res = Arrays.copyOf(res, n * 2);
+            }
+            res[n++] = i;
+            res[n++] = i + term.length();
+            i += term.length();
+         }
+         else {
+            i++;
+         }
+         i = TextUtils.indexOf(text, term, i, !isCaseSensitive);
+      }
+      return Arrays.copyOf(res, n);
+   }
+
+   private int[] regexMatches(CharSequence text, BooleanSupplier isCancelled) {
+      int[] res = new int[64];
+      int n = 0;
+      Matcher m = pattern.matcher(text);
+      int i = 0;
+      while (i <= text.length() && m.find(i) && !isCancelled.getAsBoolean()) {
+         int start = m.start();
+         int end = m.end();
+         if (end > start
+               && (!reqWord || SyntaxUtils.isWord(text, start, end - start,
+                     null))) {
+
+            if (n == res.length) {
+               res = Arrays.copyOf(res, n * 2);
+            }
+            res[n++] = start;
+            res[n++] = end;
+            i = end;
+         }
+         else {
+            i = start + 1;
+         }
+      }
+      return Arrays.copyOf(res, n);
+   }
+}
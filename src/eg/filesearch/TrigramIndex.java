@@ -0,0 +1,590 @@
+package eg.filesearch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+//--Eadgyth--/
+import eg.document.FileContentReader;
+import eg.utils.FileUtils;
+import eg.utils.SystemParams;
+
+/**
+ * The index of the trigrams in the files below a root directory.
+ * <p>
+ * For each file the index holds the sorted hash codes of all
+ * sequences of three characters in the text, where characters are
+ * folded to one case. A search term then narrows the files that can
+ * contain a match to those whose trigrams include all trigrams that
+ * each match must contain. For a regular expression these are taken
+ * from the literal sequences outside of groups and character classes
+ * and are none if the expression has an alternative at the top level.
+ * The files that are narrowed this way still have to be searched.
+ * <p>
+ * The index is updated by comparing the time of the last modification
+ * and the size of each file with the stored values, so only new or
+ * changed files are read, which is done in parallel. The index is
+ * stored in the folder 'index' in the Eadgyth data directory (see
+ * {@link SystemParams#EADGYTH_DATA_DIR}) if the data directory
+ * exists.
+ */
+public final class TrigramIndex {
+
+   private static final int MAGIC = 0x45475449;
+   private static final int VERSION = 1;
+   private static final int[] NONE = new int[0];
+
+   private final Path root;
+   private final File indexFile;
+   private final Map<String, Entry> entries = new HashMap<>();
+
+   private boolean isLoaded = false;
+
+   /**
+    * @param root  the root directory
+    */
+   public TrigramIndex(String root) {
+      this.root = new File(root).toPath().toAbsolutePath().normalize();
+      String name = UUID.nameUUIDFromBytes(
+            this.root.toString().getBytes(StandardCharsets.UTF_8)).toString();
+
+      indexFile = new File(SystemParams.EADGYTH_DATA_DIR + File.separator
+            + "index" + File.separator + name + ".idx");
+   }
+
+   /**
+    * Returns the root directory
+    *
+    * @return  the absolute and normalized root directory
+    */
+   public Path root() {
+      return root;
+   }
+
+   /**
+    * Updates the index to the current files below the root directory
+    * and stores it if changed. The first update loads the stored
+    * index
+    *
+    * @param excludedDir  the directory that is excluded; may be null
+    * @param isCancelled  the BooleanSupplier that is asked between
+    * the files if the update is cancelled. A cancelled update leaves
+    * the index incomplete
+    */
+   public synchronized void update(Path excludedDir,
+         BooleanSupplier isCancelled) {
+
+      if (!isLoaded) {
+         load();
+         isLoaded = true;
+      }
+      Map<String, BasicFileAttributes> files = new HashMap<>();
+      try {
+         Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                  BasicFileAttributes attrs) {
+
+               if (isCancelled.getAsBoolean()) {
+                  return FileVisitResult.TERMINATE;
+               }
+               if (FilesSearch.isSkippedDirectory(dir, root, excludedDir)) {
+                  return FileVisitResult.SKIP_SUBTREE;
+               }
+               return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                  BasicFileAttributes attrs) {
+
+               if (FilesSearch.isSearchedFile(attrs)) {
+                  files.put(root.relativize(file).toString(), attrs);
+               }
+               return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file,
+                  IOException e) {
+
+               return FileVisitResult.CONTINUE;
+            }
+         });
+      }
+      catch (IOException e) {
+         FileUtils.log(e);
+         return;
+      }
+      if (isCancelled.getAsBoolean()) {
+         return;
+      }
+      boolean isChanged = entries.keySet().retainAll(files.keySet());
+      List<String> changed = new ArrayList<>();
+      files.forEach((path, attrs) -> {
+         Entry e = entries.get(path);
+         if (e == null || e.lastModified != lastModified(attrs)
+               || e.size != attrs.size()) {
+
+            changed.add(path);
+         }
+      });
+      changed.parallelStream().forEach(path -> {
+         if (isCancelled.getAsBoolean()) {
+            return;
+         }
+         BasicFileAttributes attrs = files.get(path);
+         Entry e = readEntry(root.resolve(path).toFile(), attrs, isCancelled);
+         synchronized (entries) {
+            if (e != null) {
+               entries.put(path, e);
+            }
+            else {
+               entries.remove(path);
+            }
+         }
+      });
+      if (isChanged || !changed.isEmpty()) {
+         store();
+      }
+   }
+
+   /**
+    * Returns the indexed files that may contain matches of the
+    * specified <code>SearchQuery</code>
+    *
+    * @param query  the SearchQuery
+    * @return  the list of absolute files
+    */
+   public synchronized List<File> candidates(SearchQuery query) {
+      int[] required = requiredTrigrams(query);
+      List<File> list = new ArrayList<>();
+      for (Map.Entry<String, Entry> me : entries.entrySet()) {
+         Entry e = me.getValue();
+         if (e.isText && containsAll(e.trigrams, required)) {
+            list.add(root.resolve(me.getKey()).toFile());
+         }
+      }
+      return list;
+   }
+
+   /**
+    * Returns the number of indexed files
+    *
+    * @return  the number
+    */
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   /**
+    * Returns the sorted hash codes of the trigrams that each match of
+    * the specified <code>SearchQuery</code> contains
+    *
+    * @param query  the SearchQuery
+    * @return  the hash codes; an empty array if no trigram is
+    * required
+    */
+   static int[] requiredTrigrams(SearchQuery query) {
+      if (!query.isRegex()) {
+         return trigrams(query.term());
+      }
+      List<String> runs = literalRuns(query.term());
+      if (runs == null) {
+         return NONE;
+      }
+      Set<Integer> codes = new HashSet<>();
+      for (String s : runs) {
+         for (int c : trigrams(s)) {
+            codes.add(c);
+         }
+      }
+      int[] res = new int[codes.size()];
+      int i = 0;
+      for (int c : codes) {
+         res[i++] = c;
+      }
+      Arrays.sort(res);
+      return res;
+   }
+
+   /**
+    * Returns the sorted and unique hash codes of the trigrams in the
+    * specified text
+    *
+    * @param text  the text
+    * @return  the hash codes
+    */
+   static int[] trigrams(CharSequence text) {
+      int n = text.length() - 2;
+      if (n < 1) {
+         return NONE;
+      }
+      int[] res = new int[n];
+      char a = fold(text.charAt(0));
+      char b = fold(text.charAt(1));
+      for (int i = 0; i < n; i++) {
+         char c = fold(text.charAt(i + 2));
+         res[i] = hash(a, b, c);
+         a = b;
+         b = c;
+      }
+      Arrays.sort(res);
+      int length = 0;
+      for (int i = 0; i < n; i++) {
+         if (i == 0 || res[i] != res[length - 1]) {
+            res[length++] = res[i];
+         }
+      }
+      return Arrays.copyOf(res, length);
+   }
+
+   //
+   //--private--/
+   //
+
+   private static char fold(char c) {
+      return Character.toLowerCase(Character.toUpperCase(c));
+   }
+
+   private static int hash(char a, char b, char c) {
+      long k = ((long) a << 32) | ((long) b << 16) | c;
+      return (int) ((k * 0x9E3779B97F4A7C15L) >>> 32);
+   }
+
+   private static boolean containsAll(int[] trigrams, int[] required) {
+      for (int c : required) {
+         if (Arrays.binarySearch(trigrams, c) < 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static List<String> literalRuns(String regex) {
+      //
+      // a character belongs to a run only if it is matched exactly once.
+      // Groups and character classes end a run and are skipped, a
+      // quantifier that allows zero occurences removes the preceding
+      // character from the run. Returns null for an alternative at the
+      // top level or for a quoted section
+      List<String> runs = new ArrayList<>();
+      StringBuilder run = new StringBuilder();
+      int n = regex.length();
+      int i = 0;
+      while (i < n) {
+         char c = regex.charAt(i);
+         int next = i + 1;
+         boolean isLiteral = false;
+         switch (c) {
+            case '|':
+               return null;
+            case '(':
+               if (hasCommentsFlag(regex, i)) {
+                  return null;
+               }
+               next = skipGroup(regex, i);
+               break;
+            case '[':
+               next = skipClass(regex, i);
+               break;
+            case '\\':
+               if (next == n) {
+                  return null;
+               }
+               char e = regex.charAt(next);
+               if (e == 'Q') {
+                  return null;
+               }
+               next++;
+               if (Character.isLetterOrDigit(e)) {
+                  next = skipEscapeArgument(regex, next);
+               }
+               else {
+                  isLiteral = true;
+                  c = e;
+               }
+               break;
+            case '.': case '^': case '$': case ')': case ']':
+            case '*': case '+': case '?': case '{': case '}':
+               break;
+            default:
+               isLiteral = true;
+         }
+         if (next == -1) {
+            return null;
+         }
+         char q = next < n ? regex.charAt(next) : 0;
+         boolean isOptional = q == '?' || q == '*' || q == '{';
+         if (isLiteral && !isOptional) {
+            run.append(c);
+         }
+         if (!isLiteral || isOptional || q == '+') {
+            addRun(runs, run);
+         }
+         i = next;
+      }
+      addRun(runs, run);
+      return runs;
+   }
+
+   private static void addRun(List<String> runs, StringBuilder run) {
+      if (run.length() >= 3) {
+         runs.add(run.toString());
+      }
+      run.setLength(0);
+   }
+
+   private static boolean hasCommentsFlag(String regex, int start) {
+      //
+      // in comments mode white space in the expression is ignored
+      if (!regex.startsWith("(?", start)) {
+         return false;
+      }
+      for (int i = start + 2; i < regex.length(); i++) {
+         char c = regex.charAt(i);
+         if (c == 'x') {
+            return true;
+         }
+         if (!Character.isLetter(c) && c != '-') {
+            break;
+         }
+      }
+      return false;
+   }
+
+   private static int skipEscapeArgument(String regex, int start) {
+      //
+      // skips e.g. the digits of a back reference or of a character code
+      // or a name in braces. Skipping more than the argument is harmless
+      // since the skipped characters just do not belong to a run
+      int n = regex.length();
+      for (int i = start; i < n; i++) {
+         char c = regex.charAt(i);
+         if (c == '{' || c == '<') {
+            int close = regex.indexOf(c == '{' ? '}' : '>', i);
+            return close == -1 ? n : close + 1;
+         }
+         if (!Character.isLetterOrDigit(c)) {
+            return i;
+         }
+      }
+      return n;
+   }
+
+   private static int skipGroup(String regex, int start) {
+      int depth = 0;
+      for (int i = start; i < regex.length(); i++) {
+         char c = regex.charAt(i);
+         if (c == '\\') {
+            i++;
+         }
+         else if (c == '[') {
+            i = skipClass(regex, i) - 1;
+            if (i < 0) {
+               return -1;
+            }
+         }
+         else if (c == '(') {
+            depth++;
+         }
+         else if (c == ')' && --depth == 0) {
+            return i + 1;
+         }
+      }
+      return -1;
+   }
+
+   private static int skipClass(String regex, int start) {
+      int depth = 0;
+      for (int i = start; i < regex.length(); i++) {
+         char c = regex.charAt(i);
+         if (c == '\\') {
+            i++;
+         }
+         else if (c == '[') {
+            depth++;
+         }
+         else if (c == ']' && i > start + 1 && --depth == 0) {
+            return i + 1;
+         }
+      }
+      return -1;
+   }
+
+   private static long lastModified(BasicFileAttributes attrs) {
+      return attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+   }
+
+   private static Entry readEntry(File f, BasicFileAttributes attrs,
+         BooleanSupplier isCancelled) {
+
+      try (FileContentReader reader = new FileContentReader(f)) {
+         String text = FilesSearch.readText(reader, isCancelled);
+         if (text == null && isCancelled.getAsBoolean()) {
+            return null;
+         }
+         boolean isText = text != null;
+         return new Entry(lastModified(attrs), attrs.size(), isText,
+               isText ? trigrams(text) : NONE);
+      }
+      catch (IOException e) {
+         //
+         // not indexed and read again at the next update
+         return null;
+      }
+   }
+
+   private void load() {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(indexFile.toPath())))) {
+
+         if (in.readInt() != MAGIC || in.readInt() != VERSION
+               || !in.readUTF().equals(root.toString())) {
+
+            return;
+         }
+         int count = in.readInt();
+         for (int i = 0; i < count; i++) {
+            String path = in.readUTF();
+            long lastModified = in.readLong();
+            long size = in.readLong();
+            boolean isText = in.readBoolean();
+            int[] trigrams = new int[in.readInt()];
+            int prev = 0;
+            for (int j = 0; j < trigrams.length; j++) {
+               prev += readVarInt(in);
+               trigrams[j] = prev;
+            }
+            entries.put(path, new Entry(lastModified, size, isText, trigrams));
+         }
+      }
+      catch (FileNotFoundException | NoSuchFileException e) {
+         // not yet stored
+      }
+      catch (IOException e) {
+         entries.clear();
+         FileUtils.log(e);
+      }
+   }
+
+   private void store() {
+      if (!SystemParams.existsEadgythDataDir()) {
+         return;
+      }
+      File dir = indexFile.getParentFile();
+      if (!dir.exists() && !dir.mkdir()) {
+         return;
+      }
+      Path tmp = new File(indexFile.getPath() + ".tmp").toPath();
+      try {
+         try (DataOutputStream out = new DataOutputStream(
+               new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root.toString());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> me : entries.entrySet()) {
+               Entry e = me.getValue();
+               out.writeUTF(me.getKey());
+               out.writeLong(e.lastModified);
+               out.writeLong(e.size);
+               out.writeBoolean(e.isText);
+               out.writeInt(e.trigrams.length);
+               //
+               // the sorted codes are stored as differences which,
+               // read as unsigned, mostly need fewer than four bytes
+               int prev = 0;
+               for (int c : e.trigrams) {
+                  writeVarInt(out, c - prev);
+                  prev = c;
+               }
+            }
+         }
+         try {
+            Files.move(tmp, indexFile.toPath(),
+                  StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+         }
+         catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, indexFile.toPath(),
+                  StandardCopyOption.REPLACE_EXISTING);
+         }
+      }
+      catch (IOException e) {
+         FileUtils.log(e);
+         try {
+            Files.deleteIfExists(tmp);
+         }
+         catch (IOException e2) {
+            FileUtils.log(e2);
+         }
+      }
+   }
+
+   private static void writeVarInt(DataOutputStream out, int v)
+         throws IOException {
+
+      while ((v & ~0x7F) != 0) {
+         out.writeByte((v & 0x7F) | 0x80);
+         v >>>= 7;
+      }
+      out.writeByte(v);
+   }
+
+   private static int readVarInt(DataInputStream in) throws IOException {
+      int v = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+         int b = in.readUnsignedByte();
+         v |= (b & 0x7F) << shift;
+         if ((b & 0x80) == 0) {
+            return v;
+         }
+      }
+      throw new IOException("Malformed index file");
+   }
+
+   private static final class Entry {
+
+      private final long lastModified;
+      private final long size;
+      private final boolean isText;
+      private final int[] trigrams;
+
+      private Entry(long lastModified, long size, boolean isText,
+            int[] trigrams) {
+
+         this.lastModified = lastModified;
+         this.size = size;
+         this.isText = isText;
+         this.trigrams = trigrams;
+      }
+   }
+}
@@ -70,6 +70,14 @@ public class CSSHighlighter implements Highlighter {
    private static final char[] CLASS_START = {'.', '#'};
    private static final char[] CLASS_END = {' ', '{', ')'};
    private static final char[] NON_PROP_START = {'-', '.'};
+   private static final KeywordMatcher TAGS = new KeywordMatcher(false);
+   private static final KeywordMatcher PROPERTIES = new KeywordMatcher(false);
+
+   static {
+      TAGS.addWords(SyntaxConstants.HTML_TAGS, CLASS_START);
+      PROPERTIES.addWords(PROPS, NON_PROP_START);
+   }
+
    private static final int IGNORE_COND = 0;
    private static final int OPEN_BRACE_AHEAD_COND = 1;
    private static final int NO_OPEN_BRACE_AHEAD_COND = 2;
@@ -79,8 +87,7 @@ public class CSSHighlighter implements Highlighter {
       s.setBlockSection("}");
       s.resetAttributes();
       s.setCondition(NO_OPEN_BRACE_AHEAD_COND);
-      s.keywords(SyntaxConstants.HTML_TAGS, CLASS_START,
-            attr.bluePlain);
+      s.keywords(TAGS, attr.bluePlain);
 
       s.signedVariables(CLASS_START, CLASS_END, null, attr.bluePlain);
 
@@ -109,7 +116,7 @@ public class CSSHighlighter implements Highlighter {
       s.extensibleKeyword("transition", TRANSITION_PROPS, NON_PROP_START,
             attr.redPlain);
 
-      s.keywords(PROPS, NON_PROP_START, attr.redPlain);
+      s.keywords(PROPERTIES, attr.redPlain);
       s.setCondition(IGNORE_COND);
       s.braces();
       s.setCondition(OPEN_BRACE_AHEAD_COND);
@@ -119,7 +126,7 @@ public class CSSHighlighter implements Highlighter {
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       if (condition == IGNORE_COND) {
          return true;
       }
@@ -139,12 +146,12 @@ public class CSSHighlighter implements Highlighter {
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       return -1;
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       return SyntaxUtils.inBlock(text, SyntaxConstants.SLASH_STAR,
             SyntaxConstants.STAR_SLASH, pos);
    }
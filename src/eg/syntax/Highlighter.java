@@ -46,7 +46,7 @@ public interface Highlighter {
     * @return  true if valid (or no additoinal validation is
     * necessary); false otherwise
     */
-   public boolean isValid(String text, int pos, int condition);
+   public boolean isValid(CharSequence text, int pos, int condition);
 
    /**
     * Returns if the specified position is found behind a line
@@ -57,7 +57,7 @@ public interface Highlighter {
     * @return  the position of the last line comment mark; -1 if no
     * mark is found or if line comment marks can be ignored
     */
-   public int behindLineCmntMark(String text, int pos);
+   public int behindLineCmntMark(CharSequence text, int pos);
 
    /**
     * Returns if the specified position is found between the marks
@@ -68,5 +68,5 @@ public interface Highlighter {
     * @return the position of the last block comment start; -1 if
     * not between comment marks or if block comments can be ignored
     */
-   public int inBlockCmntMarks(String text, int pos);
+   public int inBlockCmntMarks(CharSequence text, int pos);
 }
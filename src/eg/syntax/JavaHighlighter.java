@@ -38,6 +38,14 @@ public class JavaHighlighter implements Highlighter {
       SyntaxConstants.DOUBLE_SLASH
    };
 
+   private static final KeywordMatcher KEYWORDS = new KeywordMatcher(false);
+
+   static {
+      KEYWORDS.addWords(JAVA_ANNOTATIONS, null);
+      KEYWORDS.addWords(JAVA_KEYWORDS, null);
+      KEYWORDS.addSigns(SyntaxConstants.BRACKETS_AND_BRACES);
+   }
+
    private static	final int IGNORE_COND = 0;
    private static final int VALID_TEXT_BLOCK_COND = 1;
 
@@ -51,15 +59,12 @@ public class JavaHighlighter implements Highlighter {
       }
       s.quote(true);
       s.lineComments(LINE_CMNT_MARK);
-      s.brackets();
-      s.braces();
-      s.keywords(JAVA_ANNOTATIONS, null, attr.bluePlain);
-      s.keywords(JAVA_KEYWORDS, null, attr.redPlain);
+      s.keywords(KEYWORDS, attr.bluePlain, attr.redPlain, attr.bracketsBold);
       s.blockComments(SyntaxConstants.SLASH_STAR, SyntaxConstants.STAR_SLASH, false);
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       if (condition == VALID_TEXT_BLOCK_COND && text.length() > pos + 3) {
             int nextNonSpace = SyntaxUtils.nextNonSpace(text, pos + 3, true);
             return text.charAt(nextNonSpace) == '\n';
@@ -68,12 +73,12 @@ public class JavaHighlighter implements Highlighter {
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       return SyntaxUtils.behindMark(text, SyntaxConstants.DOUBLE_SLASH, pos);
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       return SyntaxUtils.inBlock(text, SyntaxConstants.SLASH_STAR,
             SyntaxConstants.STAR_SLASH, pos);
    }
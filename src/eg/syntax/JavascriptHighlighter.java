@@ -32,24 +32,29 @@ public class JavascriptHighlighter implements Highlighter {
       "while", "with"
    };
 
+   private static final KeywordMatcher KEYWORDS = new KeywordMatcher(false);
+
+   static {
+      KEYWORDS.addWords(JS_KEYWORDS, null);
+      KEYWORDS.addSigns(SyntaxConstants.BRACKETS_AND_BRACES);
+   }
+
    @Override
    public void highlight(SyntaxSearcher s, Attributes attr) {
       s.resetAttributes();
       s.quote(true);
       s.lineComments(LINE_CMNT_MARKS);
-      s.keywords(JS_KEYWORDS, null, attr.redPlain);
-      s.brackets();
-      s.braces();
+      s.keywords(KEYWORDS, attr.redPlain, attr.bracketsBold);
       s.blockComments(SyntaxConstants.SLASH_STAR, SyntaxConstants.STAR_SLASH, false);
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       return true;
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       int res = -1;
       int slash = SyntaxUtils.behindMark(text, SyntaxConstants.DOUBLE_SLASH, pos);
       int htmlStartMark = SyntaxUtils.behindMark(text,
@@ -64,7 +69,7 @@ public class JavascriptHighlighter implements Highlighter {
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       return SyntaxUtils.inBlock(text, SyntaxConstants.SLASH_STAR,
             SyntaxConstants.STAR_SLASH, pos);
    }
@@ -0,0 +1,225 @@
+package eg.syntax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The search of keywords of several groups in one pass over a
+ * text.
+ * <p>
+ * The keywords are compiled into an automaton (Aho-Corasick) which
+ * finds all occurrences of all keywords while reading each character
+ * only once. Each keyword belongs to a group that is identified by
+ * the index in the order in which the groups are added. A group
+ * may require that its keywords are words. Keywords must consist of
+ * ASCII characters.
+ * <p>
+ * Groups are meant to be added when the class of a
+ * {@link Highlighter} is initialized. Searching does not change a
+ * <code>KeywordMatcher</code>.
+ */
+public class KeywordMatcher {
+
+   private static final int ALPHABET = 128;
+   private static final int ROOT = 0;
+
+   private final boolean ignoreCase;
+   private final List<String> keys = new ArrayList<>();
+   private final List<Integer> keyGroups = new ArrayList<>();
+   private final List<Boolean> groupWords = new ArrayList<>();
+   private final List<char[]> groupNonStarts = new ArrayList<>();
+
+   private int[] keyLengths;
+   private int[] keyGroupArr;
+   private int[] delta;
+   private int[] terminal;
+   private int[] outLink;
+
+   /**
+    * Handles a keyword found by {@link #search}
+    */
+   @FunctionalInterface
+   public interface MatchHandler {
+
+      /**
+       * Is called for a found keyword
+       *
+       * @param start  the position where the keyword starts
+       * @param length  the length of the keyword
+       * @param group  the index of the group of the keyword
+       */
+      public void found(int start, int length, int group);
+   }
+
+   /**
+    * @param ignoreCase  true to search keywords without case
+    * sensitivity
+    */
+   public KeywordMatcher(boolean ignoreCase) {
+      this.ignoreCase = ignoreCase;
+      compile();
+   }
+
+   /**
+    * Adds a group of keywords that are found only if they are words
+    *
+    * @param keywords  the keywords
+    * @param nonStart  the characters that must not precede a
+    * keyword, in addition to letters and digits. Can be null
+    * @return  the index of the group
+    */
+   public int addWords(String[] keywords, char[] nonStart) {
+      return addGroup(keywords, true, nonStart);
+   }
+
+   /**
+    * Adds a group of keywords that are found anywhere, for example
+    * brackets
+    *
+    * @param keywords  the keywords
+    * @return  the index of the group
+    */
+   public int addSigns(String[] keywords) {
+      return addGroup(keywords, false, null);
+   }
+
+   /**
+    * Returns the number of groups
+    *
+    * @return  the number of groups
+    */
+   public int groupCount() {
+      return groupWords.size();
+   }
+
+   /**
+    * Searches all keywords in the specified text. A keyword found
+    * at a position is skipped if the same keyword is found at a
+    * position before where it is not yet completed.
+    *
+    * @param text  the text
+    * @param mh  the MatchHandler that is called for each keyword
+    * found, in the order of the end positions
+    */
+   public void search(CharSequence text, MatchHandler mh) {
+      int[] lastEnds = new int[keyLengths.length];
+      int state = ROOT;
+      for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         if (ignoreCase) {
+            c = Character.toLowerCase(c);
+         }
+         state = c < ALPHABET ? delta[state * ALPHABET + c] : ROOT;
+         int s = terminal[state] != -1 ? state : outLink[state];
+         while (s != -1) {
+            int k = terminal[s];
+            int len = keyLengths[k];
+            int start = i + 1 - len;
+            if (start >= lastEnds[k]) {
+               lastEnds[k] = i + 1;
+               int g = keyGroupArr[k];
+               if (!groupWords.get(g)
+                     || SyntaxUtils.isWord(text, start, len, groupNonStarts.get(g))) {
+
+                  mh.found(start, len, g);
+               }
+            }
+            s = outLink[s];
+         }
+      }
+   }
+
+   //
+   //--private--/
+   //
+
+   private int addGroup(String[] keywords, boolean word, char[] nonStart) {
+      int g = groupWords.size();
+      for (String s : keywords) {
+         if (s.isEmpty()) {
+            throw new IllegalArgumentException("A keyword cannot be empty");
+         }
+         for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= ALPHABET) {
+               throw new IllegalArgumentException(
+                     "A keyword must consist of ASCII characters: " + s);
+            }
+         }
+         keys.add(ignoreCase ? s.toLowerCase() : s);
+         keyGroups.add(g);
+      }
+      groupWords.add(word);
+      groupNonStarts.add(nonStart);
+      compile();
+      return g;
+   }
+
+   private void compile() {
+      int maxStates = 1;
+      for (String s : keys) {
+         maxStates += s.length();
+      }
+      int[] gotoArr = new int[maxStates * ALPHABET];
+      Arrays.fill(gotoArr, -1);
+      int[] term = new int[maxStates];
+      Arrays.fill(term, -1);
+      int nStates = 1;
+      int[] lengths = new int[keys.size()];
+      int[] groups = new int[keys.size()];
+      for (int k = 0; k < keys.size(); k++) {
+         String s = keys.get(k);
+         lengths[k] = s.length();
+         groups[k] = keyGroups.get(k);
+         int state = ROOT;
+         for (int i = 0; i < s.length(); i++) {
+            int ind = state * ALPHABET + s.charAt(i);
+            if (gotoArr[ind] == -1) {
+               gotoArr[ind] = nStates++;
+            }
+            state = gotoArr[ind];
+         }
+         //
+         // a keyword that is added again belongs to the later group
+         term[state] = k;
+      }
+      int[] fail = new int[nStates];
+      int[] links = new int[nStates];
+      Arrays.fill(links, -1);
+      int[] queue = new int[nStates];
+      int head = 0;
+      int tail = 0;
+      for (int c = 0; c < ALPHABET; c++) {
+         int next = gotoArr[c];
+         if (next == -1) {
+            gotoArr[c] = ROOT;
+         }
+         else {
+            fail[next] = ROOT;
+            queue[tail++] = next;
+         }
+      }
+      while (head < tail) {
+         int state = queue[head++];
+         int f = fail[state];
+         links[state] = term[f] != -1 ? f : links[f];
+         for (int c = 0; c < ALPHABET; c++) {
+            int ind = state * ALPHABET + c;
+            int next = gotoArr[ind];
+            int failNext = gotoArr[f * ALPHABET + c];
+            if (next == -1) {
+               gotoArr[ind] = failNext;
+            }
+            else {
+               fail[next] = failNext;
+               queue[tail++] = next;
+            }
+         }
+      }
+      delta = Arrays.copyOf(gotoArr, nStates * ALPHABET);
+      terminal = Arrays.copyOf(term, nStates);
+      outLink = links;
+      keyLengths = lengths;
+      keyGroupArr = groups;
+   }
+}
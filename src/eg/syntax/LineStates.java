@@ -0,0 +1,297 @@
+package eg.syntax;
+
+import java.util.Arrays;
+
+//--Eadgyth--/
+import eg.utils.LineIndex;
+import eg.utils.TextUtils;
+
+/**
+ * The states of the syntax highlighting at the ends of lines.
+ * <p>
+ * A state tells which kinds of multiline text elements (block
+ * comments, text blocks, multiline quotes, heredocs, quote operators,
+ * CDATA blocks and sections embedded in HTML) continue behind the end
+ * of a line and if a quote ended inside a text element in which a
+ * further quote is recognized only for this reason. The states are
+ * derived from the ranges of the text elements that are found in a
+ * search and are compared to the stored states of a previous search.
+ * The highlighting of a line needs to be updated only if the state at
+ * its start or end differs or if the line was changed. The stored
+ * states move along with insertions and removals of lines.
+ * <p>
+ * Line numbers are one-based.
+ */
+final class LineStates {
+
+   static final int BLOCK_CMNT = 0;
+   static final int TRI_DOUBLE_QUOTE = 1;
+   static final int TRI_SINGLE_QUOTE = 2;
+   static final int DOUBLE_QUOTE = 3;
+   static final int SINGLE_QUOTE = 4;
+   static final int HEREDOC = 5;
+   static final int QUOTE_OPERATOR = 6;
+   static final int CDATA = 7;
+   static final int INNER_SECTION = 8;
+   static final int QUOTE_CHECK = 9;
+
+   private static final int N_KINDS = 10;
+   private static final int UNKNOWN = -1;
+
+   private int[] states = new int[256];
+   private int nLines = 0;
+   private int dirtyFirst = 0;
+   private int dirtyLast = 0;
+
+   private final int[][] starts = new int[N_KINDS][16];
+   private final int[][] ends = new int[N_KINDS][16];
+   private final int[] nRanges = new int[N_KINDS];
+   private int blockScopeStart = 0;
+   private int blockScopeEnd = 0;
+
+   /**
+    * Clears the ranges of text elements for a new search
+    */
+   void clearRanges() {
+      Arrays.fill(nRanges, 0);
+      blockScopeStart = 0;
+      blockScopeEnd = 0;
+   }
+
+   /**
+    * Adds the range of a multiline text element
+    *
+    * @param kind  the kind of text element, one of the constants in
+    * this class
+    * @param start  the start of the text element
+    * @param end  the end of the text element, which is the start of
+    * the closing mark if there is one
+    */
+   void addRange(int kind, int start, int end) {
+      int n = nRanges[kind];
+      if (n == starts[kind].length) {
+         starts[kind] = Arrays.copyOf(starts[kind], n * 2);
+         ends[kind] = Arrays.copyOf(ends[kind], n * 2);
+      }
+      int i = n;
+      while (i > 0 && starts[kind][i - 1] > start) {
+         starts[kind][i] = starts[kind][i - 1];
+         ends[kind][i] = ends[kind][i - 1];
+         i--;
+      }
+      starts[kind][i] = start;
+      ends[kind][i] = end;
+      nRanges[kind]++;
+   }
+
+   /**
+    * Sets the section of text in which block comments were searched.
+    * The state of block comments is taken from the stored states
+    * outside this section.
+    *
+    * @param start  the start of the section
+    * @param end  the end of the section
+    */
+   void addBlockScope(int start, int end) {
+      if (blockScopeStart == blockScopeEnd) {
+         blockScopeStart = start;
+         blockScopeEnd = end;
+      }
+      else {
+         blockScopeStart = Math.min(blockScopeStart, start);
+         blockScopeEnd = Math.max(blockScopeEnd, end);
+      }
+   }
+
+   /**
+    * Stores the states of all lines in the specified text. The text
+    * elements must have been searched in the entire text.
+    *
+    * @param text  the text
+    */
+   void storeAll(CharSequence text) {
+      nLines = 0;
+      int pos = 0;
+      while (pos != -1) {
+         int end = TextUtils.indexOf(text, '\n', pos);
+         ensureCapacity(nLines + 1);
+         states[nLines] = stateAt(end != -1 ? end : text.length(), UNKNOWN);
+         nLines++;
+         pos = end != -1 ? end + 1 : -1;
+      }
+      dirtyFirst = 0;
+      dirtyLast = 0;
+   }
+
+   /**
+    * Discards the stored states
+    */
+   void discard() {
+      nLines = 0;
+      dirtyFirst = 0;
+      dirtyLast = 0;
+   }
+
+   /**
+    * Moves the stored states along with an insertion of lines
+    *
+    * @param lineNr  the number of the line where the insertion
+    * starts
+    * @param n  the number of inserted newline characters
+    */
+   void insertLines(int lineNr, int n) {
+      if (nLines == 0 || lineNr > nLines) {
+         return;
+      }
+      if (n > 0) {
+         ensureCapacity(nLines + n);
+         int i = lineNr - 1;
+         System.arraycopy(states, i, states, i + n, nLines - i);
+         Arrays.fill(states, i, i + n, UNKNOWN);
+         nLines += n;
+         if (dirtyFirst > lineNr) {
+            dirtyFirst += n;
+         }
+         if (dirtyLast > lineNr) {
+            dirtyLast += n;
+         }
+      }
+      markDirty(lineNr, lineNr + n);
+   }
+
+   /**
+    * Moves the stored states along with a removal of lines
+    *
+    * @param lineNr  the number of the line where the removal starts
+    * @param n  the number of removed newline characters
+    */
+   void removeLines(int lineNr, int n) {
+      if (nLines == 0 || lineNr + n > nLines) {
+         discard();
+         return;
+      }
+      if (n > 0) {
+         int i = lineNr - 1;
+         System.arraycopy(states, i + n, states, i, nLines - i - n);
+         nLines -= n;
+         if (dirtyFirst > lineNr) {
+            dirtyFirst = Math.max(lineNr, dirtyFirst - n);
+         }
+         if (dirtyLast > lineNr) {
+            dirtyLast = Math.max(lineNr, dirtyLast - n);
+         }
+      }
+      markDirty(lineNr, lineNr);
+   }
+
+   /**
+    * Marks lines whose highlighting is updated
+    *
+    * @param first  the number of the first line
+    * @param last  the number of the last line
+    */
+   void markDirty(int first, int last) {
+      if (dirtyFirst == 0) {
+         dirtyFirst = first;
+         dirtyLast = last;
+      }
+      else {
+         dirtyFirst = Math.min(dirtyFirst, first);
+         dirtyLast = Math.max(dirtyLast, last);
+      }
+   }
+
+   /**
+    * Updates the stored states around the lines marked as dirty from
+    * the ranges of the last search and returns the lines whose
+    * highlighting may have changed. The update proceeds from the
+    * dirty lines backwards and forwards until a stored state equals
+    * the new state.
+    *
+    * @param index  the LineIndex of the text
+    * @return  the numbers of the first and the last line; null if no
+    * line is marked. All lines if the stored states do not match the
+    * lines
+    */
+   int[] update(LineIndex index) {
+      if (nLines == 0 || nLines != index.lineCount()) {
+         nLines = index.lineCount();
+         ensureCapacity(nLines);
+         Arrays.fill(states, 0, nLines, UNKNOWN);
+         dirtyFirst = 1;
+         dirtyLast = nLines;
+      }
+      else if (dirtyFirst == 0) {
+         return null;
+      }
+      int first = dirtyFirst;
+      int last = Math.min(dirtyLast, nLines);
+      dirtyFirst = 0;
+      dirtyLast = 0;
+      int lineNr = first - 1;
+      while (lineNr >= 1) {
+         int state = stateAt(index.lineEnd(lineNr), states[lineNr - 1]);
+         if (state == states[lineNr - 1]) {
+            break;
+         }
+         states[lineNr - 1] = state;
+         lineNr--;
+      }
+      int from = lineNr + 1;
+      lineNr = first;
+      while (true) {
+         int old = states[lineNr - 1];
+         int state = stateAt(index.lineEnd(lineNr), old);
+         states[lineNr - 1] = state;
+         if ((lineNr >= last && state == old) || lineNr == nLines) {
+            break;
+         }
+         lineNr++;
+      }
+      return new int[] {from, lineNr};
+   }
+
+   //
+   //--private--/
+   //
+
+   private int stateAt(int pos, int stored) {
+      int state = 0;
+      for (int kind = 0; kind < N_KINDS; kind++) {
+         boolean isIn;
+         if (kind == BLOCK_CMNT && (pos < blockScopeStart || pos >= blockScopeEnd)) {
+            isIn = stored != UNKNOWN && (stored & 1) != 0;
+         }
+         else {
+            isIn = contains(kind, pos);
+         }
+         if (isIn) {
+            state |= 1 << kind;
+         }
+      }
+      return state;
+   }
+
+   private boolean contains(int kind, int pos) {
+      int lo = 0;
+      int hi = nRanges[kind] - 1;
+      int found = -1;
+      while (lo <= hi) {
+         int mid = (lo + hi) >>> 1;
+         if (starts[kind][mid] <= pos) {
+            found = mid;
+            lo = mid + 1;
+         }
+         else {
+            hi = mid - 1;
+         }
+      }
+      return found != -1 && pos < ends[kind][found];
+   }
+
+   private void ensureCapacity(int size) {
+      if (size > states.length) {
+         states = Arrays.copyOf(states, Math.max(size, states.length * 2));
+      }
+   }
+}
@@ -0,0 +1,61 @@
+package eg.syntax;
+
+/**
+ * A view of a text in which each character is converted to lower
+ * case when it is read.
+ * <p>
+ * The text is not copied and the view therefore always reflects the
+ * current text. Unlike <code>String.toLowerCase</code> the conversion
+ * is done for single characters and does not depend on the locale so
+ * that positions in the view equal positions in the text.
+ */
+final class LowerCaseText implements CharSequence {
+
+   private final CharSequence text;
+
+   /**
+    * @param text  the text
+    */
+   LowerCaseText(CharSequence text) {
+      this.text = text;
+   }
+
+   @Override
+   public int length() {
+      return text.length();
+   }
+
+   @Override
+   public char charAt(int i) {
+      return toLowerCase(text.charAt(i));
+   }
+
+   @Override
+   public String subSequence(int start, int end) {
+      if (start < 0 || end > text.length() || start > end) {
+         throw new IndexOutOfBoundsException(
+               "Start: " + start + ", end: " + end);
+      }
+      char[] c = new char[end - start];
+      for (int i = 0; i < c.length; i++) {
+         c[i] = toLowerCase(text.charAt(start + i));
+      }
+      return new String(c);
+   }
+
+   @Override
+   public String toString() {
+      return subSequence(0, text.length());
+   }
+
+   //
+   //--private--/
+   //
+
+   private static char toLowerCase(char c) {
+      if (c < 128) {
+         return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+      }
+      return Character.toLowerCase(c);
+   }
+}
@@ -4,6 +4,7 @@ import eg.document.styledtext.Attributes;
 
 //--Eadgyth--/
 import eg.utils.LinesFinder;
+import eg.utils.TextUtils;
 
 /**
  * Syntax highlighting for PHP
@@ -47,6 +48,12 @@ public class PHPHighlighter implements Highlighter, HeredocSearch {
       SyntaxConstants.HASH, SyntaxConstants.DOUBLE_SLASH
    };
 
+   private static final KeywordMatcher KEYWORDS = new KeywordMatcher(true);
+
+   static {
+      KEYWORDS.addWords(PHP_KEYWORDS, START_OF_VAR);
+   }
+
    private static final String HEREDOC_SYMBOL = "<<<";
 
    private static final int VAR_COND = 1;
@@ -59,13 +66,13 @@ public class PHPHighlighter implements Highlighter, HeredocSearch {
       s.mapHeredocs(this);
       s.quote(false);
       s.lineComments(LINE_CMNT_MARKS);
-      s.keywordsIgnoreCase(PHP_KEYWORDS, START_OF_VAR, attr.redPlain);
+      s.keywords(KEYWORDS, attr.redPlain);
       s.signedVariables(START_OF_VAR, END_OF_VAR, null, attr.bluePlain);
       s.blockComments(SyntaxConstants.SLASH_STAR, SyntaxConstants.STAR_SLASH, false);
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       if (condition == VAR_COND && text.length() - 1 > pos) {
          char second = text.charAt(pos + 1);
          return second == '_' || Character.isLetter(second);
@@ -74,7 +81,7 @@ public class PHPHighlighter implements Highlighter, HeredocSearch {
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       int res = -1;
       int slash = SyntaxUtils.behindMark(text, SyntaxConstants.DOUBLE_SLASH, pos);
       int hash = SyntaxUtils.behindMark(text, SyntaxConstants.HASH, pos);
@@ -88,18 +95,18 @@ public class PHPHighlighter implements Highlighter, HeredocSearch {
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       return SyntaxUtils.inBlock(text, SyntaxConstants.SLASH_STAR,
             SyntaxConstants.STAR_SLASH, pos);
    }
 
    @Override
-   public int nextHeredoc(String text, int start) {
-      return text.indexOf(HEREDOC_SYMBOL, start);
+   public int nextHeredoc(CharSequence text, int start) {
+      return TextUtils.indexOf(text, HEREDOC_SYMBOL, start);
    }
 
    @Override
-   public String heredocTag(String text, int pos, int lineEnd) {
+   public String heredocTag(CharSequence text, int pos, int lineEnd) {
       int start = pos + HEREDOC_SYMBOL.length();
       if (start == lineEnd) {
          return "";
@@ -133,11 +140,11 @@ public class PHPHighlighter implements Highlighter, HeredocSearch {
          }
       }
       int allowedLen = quoted ? lineEnd - start - 1 : lineEnd - start;
-      return allowedLen == len ? text.substring(start, start + len) : "";
+      return allowedLen == len ? text.subSequence(start, start + len).toString() : "";
    }
 
    @Override
-   public boolean validHeredocEnd(String text, int end, int tagLength) {
+   public boolean validHeredocEnd(CharSequence text, int end, int tagLength) {
       int lineStart = LinesFinder.lastNewline(text, end);
       int idStart = SyntaxUtils.nextNonSpace(text, lineStart + 1, true);
       boolean b = false;
@@ -2,6 +2,9 @@ package eg.syntax;
 
 import eg.document.styledtext.Attributes;
 
+//--Eadgyth--/
+import eg.utils.TextUtils;
+
 /**
  * Syntax highlighting for Perl
  */
@@ -67,6 +70,12 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
       SyntaxConstants.HASH
    };
 
+   private static final KeywordMatcher KEYWORDS = new KeywordMatcher(false);
+
+   static {
+      KEYWORDS.addWords(SYNTAX_KEYWORDS, NON_KEY_WORD_START);
+   }
+
    private static final String POD_START = "\n=";
    private static final String POD_END = "\n=cut";
    private static final String HEREDOC_SYMBOL = "<<";
@@ -84,7 +93,7 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
       s.setCondition(LINE_CMNT_COND);
       s.lineComments(LINE_CMNT_MARKS);
       s.setCondition(IGNORE_COND);
-      s.keywords(SYNTAX_KEYWORDS, NON_KEY_WORD_START, attr.redPlain);
+      s.keywords(KEYWORDS, attr.redPlain);
       s.signedVariables(START_OF_ARR_HASH, END_OF_VAR, null,
             attr.purplePlain);
 
@@ -96,7 +105,7 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       if (condition == LINE_CMNT_COND) {
          return isLineCmntStart(text, pos);
       }
@@ -104,7 +113,7 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       int i = SyntaxUtils.behindMark(text, SyntaxConstants.HASH, pos);
       if (i != -1 && !isLineCmntStart(text, i)) {
          i = -1;
@@ -113,15 +122,15 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       int start = -1;
-      int end = text.indexOf(POD_END, pos);
+      int end = TextUtils.indexOf(text, POD_END, pos);
       if (end != -1) {
-         int lastEnd = text.lastIndexOf(POD_END, end - 1);
+         int lastEnd = TextUtils.lastIndexOf(text, POD_END, end - 1);
          lastEnd = lastEnd == -1 ? 0 : lastEnd + POD_END.length();
-         int startTest = text.indexOf(POD_START, lastEnd);
+         int startTest = TextUtils.indexOf(text, POD_START, lastEnd);
          if (startTest < pos && pos < end
-               && startTest != text.indexOf(POD_END, startTest)) {
+               && startTest != TextUtils.indexOf(text, POD_END, startTest)) {
 
             start = startTest;
          }
@@ -130,12 +139,12 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public int nextQuoteKeyword(String text, int start) {
-      return text.indexOf('q', start);
+   public int nextQuoteKeyword(CharSequence text, int start) {
+      return TextUtils.indexOf(text, 'q', start);
    }
 
    @Override
-   public int quoteKeywordLength(String text, int pos) {
+   public int quoteKeywordLength(CharSequence text, int pos) {
       int length = 1;
       if (text.length() - 1 > pos
             && SyntaxUtils.isCharEqualTo(text, pos + 1, PERL_Q_KEYWORD_SEC)) {
@@ -146,7 +155,7 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public int quoteLength(String text, int pos) {
+   public int quoteLength(CharSequence text, int pos) {
       int length = 0;
       int d = SyntaxUtils.nextNonSpace(text, pos, false);
       if (d < text.length()) {
@@ -175,12 +184,12 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    }
 
    @Override
-   public int nextHeredoc(String text, int start) {
-      return text.indexOf(HEREDOC_SYMBOL, start);
+   public int nextHeredoc(CharSequence text, int start) {
+      return TextUtils.indexOf(text, HEREDOC_SYMBOL, start);
    }
 
    @Override
-   public String heredocTag(String text, int pos, int lineEnd) {
+   public String heredocTag(CharSequence text, int pos, int lineEnd) {
       int start = pos + HEREDOC_SYMBOL.length();
       if (start == lineEnd) {
          return "";
@@ -212,11 +221,11 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
             }
          }
       }
-      return text.substring(start, start + length);
+      return text.subSequence(start, start + length).toString();
    }
 
    @Override
-   public boolean validHeredocEnd(String text, int end, int tagLength) {
+   public boolean validHeredocEnd(CharSequence text, int end, int tagLength) {
       if (text.charAt(end - 1) != '\n') {
          return false;
       }
@@ -232,7 +241,7 @@ public class PerlHighlighter implements Highlighter, QuoteOperatorSearch,
    //--private--/
    //
 
-   private boolean isLineCmntStart(String text, int pos) {
+   private boolean isLineCmntStart(CharSequence text, int pos) {
       if (pos > 0) {
          char c = text.charAt(pos - 1);
          for (char non : START_OF_VAR) {
@@ -30,29 +30,34 @@ public class PythonHighlighter implements Highlighter {
       SyntaxConstants.HASH
    };
 
+   private static final KeywordMatcher KEYWORD_MATCHER = new KeywordMatcher(false);
+
+   static {
+      KEYWORD_MATCHER.addWords(KEYWORDS, null);
+      KEYWORD_MATCHER.addSigns(SyntaxConstants.BRACKETS_AND_BRACES);
+   }
+
    @Override
    public void highlight(SyntaxSearcher s, Attributes attr) {
       s.resetAttributes();
       s.tripleQuoteTextBlocks(true);
       s.quote(true);
       s.lineComments(LINE_CMNT_MARKS);
-      s.keywords(KEYWORDS, null, attr.redPlain);
-      s.brackets();
-      s.braces();
+      s.keywords(KEYWORD_MATCHER, attr.redPlain, attr.bracketsBold);
    }
 
    @Override
-   public boolean isValid(String text, int pos, int condition) {
+   public boolean isValid(CharSequence text, int pos, int condition) {
       return true;
    }
 
    @Override
-   public int behindLineCmntMark(String text, int pos) {
+   public int behindLineCmntMark(CharSequence text, int pos) {
       return SyntaxUtils.behindMark(text, SyntaxConstants.HASH, pos);
    }
 
    @Override
-   public int inBlockCmntMarks(String text, int pos) {
+   public int inBlockCmntMarks(CharSequence text, int pos) {
       return -1;
    }
 }
@@ -12,7 +12,7 @@ public interface QuoteOperatorSearch {
      * @param start  the position where the search starts
      * @return  the position of the keyword; -1 if not found
      */
-    public int nextQuoteKeyword(String text, int start);
+    public int nextQuoteKeyword(CharSequence text, int start);
     
     /**
      * Returns the length of the quote operator keyword
@@ -21,7 +21,7 @@ public interface QuoteOperatorSearch {
      * @param pos  the position of the keyword
      * @return  the length
      */
-    public int quoteKeywordLength(String text, int pos);
+    public int quoteKeywordLength(CharSequence text, int pos);
     
     /**
      * Returns the length of the quotation
@@ -31,5 +31,5 @@ public interface QuoteOperatorSearch {
      * is the position after the quote operator keyword
      * @return  the length
      */
-    public int quoteLength(String text, int pos);
+    public int quoteLength(CharSequence text, int pos);
 }
@@ -1,34 +1,29 @@
 package eg.syntax;
 
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * The mapping of strings
+ * <p>
+ * The starts and ends are kept in arrays of primitive integers
+ * and are looked up by a binary search.
  */
 public class StringMap {
 
-   private final List<Integer> starts = new ArrayList<>();
-   private final List<Integer> ends = new ArrayList<>();
-   //
-   // to remember after a new mapping
-   private final List<Boolean> marks = new ArrayList<>();
+   private int[] starts = new int[16];
+   private int[] ends = new int[16];
+   private int size = 0;
 
    /**
     * Clears the string map for a renewed mapping
     */
    public void reset() {
-      if (marks.size() > starts.size()) {
-         for (int i = starts.size(); i < marks.size(); i++) {
-            marks.remove(i);
-         }
-      }
-      starts.clear();
-      ends.clear();
+      size = 0;
    }
 
    /**
-    * Adds the start and end positions of a string
+    * Adds the start and end positions of a string. Strings must be
+    * added in the order of their positions
     *
     * @param start  the start
     * @param end  the end
@@ -38,32 +33,34 @@ public class StringMap {
    }
 
    /**
-    * Returns if the type of quote mark, i.e. double quotes versus
-    * single quotes, has changed at the ith string.
+    * Returns the the current number of strings
+    *
+    * @return  the size
+    */
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Returns the start of the ith string
     *
-    * @param type  true for (consistently) one type of quote mark,
-    * false for the other
     * @param i  the index
-    * @return  true if the mark changed; false otherwise
+    * @return  the start position
     */
-   public boolean quoteMarkChange(int i, boolean type) {
-      boolean b = markChangeImpl(i, type);
-      if (i < marks.size()) {
-         marks.set(i, type);
-      }
-      else if (i == marks.size()) {
-         marks.add(type);
-      }
-      return b;
+   public int start(int i) {
+      checkIndex(i);
+      return starts[i];
    }
 
    /**
-    * Returns the the current number of strings
+    * Returns the end of the ith string
     *
-    * @return  the size
+    * @param i  the index
+    * @return  the end position
     */
-   public int size() {
-      return starts.size();
+   public int end(int i) {
+      checkIndex(i);
+      return ends[i];
    }
 
    /**
@@ -74,29 +71,17 @@ public class StringMap {
     * string
     */
    public int inString(int pos) {
-      if (starts.isEmpty()) {
+      int i = lastAtOrBefore(starts, pos);
+      if (i == -1) {
          return -1;
       }
-      int lastStart = -1;
-      int nextStart = -1;
-      for (int i : starts) {
-         if (i > pos) {
-            nextStart = i;
-            break;
-         }
-         lastStart = i;
-      }
-      int nextEnd = -1;
-      int lastEnd = -1;
-      for (int i : ends) {
-         if (i > pos) {
-            nextEnd = i;
-            break;
-         }
-         lastEnd = i;
-      }
-      if ((lastStart != -1 & lastStart > lastEnd)
-            && (nextEnd != -1 & (nextStart == -1 || nextEnd < nextStart))) {
+      int lastStart = starts[i];
+      int nextStart = i + 1 < size ? starts[i + 1] : -1;
+      int j = lastAtOrBefore(ends, pos);
+      int lastEnd = j != -1 ? ends[j] : -1;
+      int nextEnd = j + 1 < size ? ends[j + 1] : -1;
+      if (lastStart > lastEnd
+            && (nextEnd != -1 && (nextStart == -1 || nextEnd < nextStart))) {
 
          return lastStart;
       }
@@ -110,15 +95,35 @@ public class StringMap {
    //
 
    private void addImpl(int start, int end) {
-      starts.add(start);
-      ends.add(end);
+      if (size == starts.length) {
+         starts = Arrays.copyOf(starts, size * 2);
+         ends = Arrays.copyOf(ends, size * 2);
+      }
+      starts[size] = start;
+      ends[size] = end;
+      size++;
+   }
+
+   private int lastAtOrBefore(int[] positions, int pos) {
+      int lo = 0;
+      int hi = size - 1;
+      int found = -1;
+      while (lo <= hi) {
+         int mid = (lo + hi) >>> 1;
+         if (positions[mid] <= pos) {
+            found = mid;
+            lo = mid + 1;
+         }
+         else {
+            hi = mid - 1;
+         }
+      }
+      return found;
    }
 
-   private boolean markChangeImpl(int i, boolean doubleQuote) {
-      if (marks.isEmpty() || i >= marks.size()) {
-         return false;
+   private void checkIndex(int i) {
+      if (i < 0 || i >= size) {
+         throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
       }
-      //System.out.println(marks.size());
-      return marks.get(i) != doubleQuote;
    }
 }
@@ -19,6 +19,12 @@ public class SyntaxConstants {
       ')', '}', '>', ']'
    };
 
+   /**
+    * The brackets and braces as strings */
+   public static final String[] BRACKETS_AND_BRACES = {
+      "(", ")", "{", "}"
+   };
+
    /**
     * The single quote character */
    public static final char SINGLE_QUOTE = '\'';
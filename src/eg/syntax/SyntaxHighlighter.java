@@ -1,26 +1,50 @@
 package eg.syntax;
 
 //--Eadgyth--/
+import eg.utils.LineIndex;
 import eg.utils.LinesFinder;
 import eg.document.styledtext.StyledText;
 import eg.document.styledtext.Attributes;
 
 /**
  * The syntax highlighting
+ * <p>
+ * If a <code>LineIndex</code> is given the highlighting of sections
+ * is extended to all lines at whose start or end the state of
+ * multiline text elements (block comments, text blocks, etc.)
+ * changed.
  */
 public class SyntaxHighlighter {
 
-   private final SyntaxSearcher searcher;
+   //
+   // the number of extensions after which the entire text is highlighted
+   private static final int MAX_REPAIRS = 4;
+
+   private SyntaxSearcher searcher;
 
    private final StyledText txt;
    private final Attributes attr;
+   private final LineIndex lineIndex;
    private Highlighter hl;
 
    /**
+    * Creates a <code>SyntaxHighlighter</code> which highlights the
+    * entire text only
+    *
     * @param txt  the reference to StyledText
     */
    public SyntaxHighlighter(StyledText txt) {
+      this(txt, null);
+   }
+
+   /**
+    * @param txt  the reference to StyledText
+    * @param lineIndex  the LineIndex of the text. Can be null if
+    * only the entire text is highlighted
+    */
+   public SyntaxHighlighter(StyledText txt, LineIndex lineIndex) {
       this.txt = txt;
+      this.lineIndex = lineIndex;
       attr = txt.attributes();
       searcher = new SyntaxSearcher(txt);
    }
@@ -39,8 +63,79 @@ public class SyntaxHighlighter {
     * Highlights text elements in the entire text
     */
    public void highlight() {
-      searcher.setTextParams(txt.text(), 0, 0);
-      hl.highlight(searcher, attr);
+      txt.startBuffering();
+      try {
+         searcher.highlightAll();
+      }
+      finally {
+         txt.applyBuffered();
+      }
+   }
+
+   /**
+    * Moves the states of lines along with a change of the text.
+    * Must be called for each insertion and removal if sections
+    * are highlighted.
+    *
+    * @param pos  the position where the change starts
+    * @param change  the inserted or removed text
+    * @param isInsert  true for an insertion, false for a removal
+    */
+   public void updateLineStates(int pos, CharSequence change, boolean isInsert) {
+      if (lineIndex == null) {
+         return;
+      }
+      int n = 0;
+      for (int i = 0; i < change.length(); i++) {
+         if (change.charAt(i) == '\n') {
+            n++;
+         }
+      }
+      int lineNr = lineIndex.lineNrAtPos(pos);
+      if (isInsert) {
+         searcher.lineStates().insertLines(lineNr, n);
+      }
+      else {
+         searcher.lineStates().removeLines(lineNr, n);
+      }
+   }
+
+   /**
+    * Creates a <code>SyntaxSearcher</code> for highlighting the
+    * specified copy of the text by {@link #highlight(SyntaxSearcher)}.
+    * The set {@link Highlighter} is used.
+    *
+    * @param copy  the StyledText that contains a copy of the text
+    * and has the same Attributes
+    * @return  the SyntaxSearcher
+    */
+   public SyntaxSearcher createSearcher(StyledText copy) {
+      SyntaxSearcher s = new SyntaxSearcher(copy);
+      s.setHighlighter(hl);
+      return s;
+   }
+
+   /**
+    * Highlights text elements in the entire text of the copy for
+    * which the specified <code>SyntaxSearcher</code> was created.
+    * The method may be called outside the event dispatch thread.
+    *
+    * @param s  the SyntaxSearcher created by {@link #createSearcher}
+    */
+   public static void highlight(SyntaxSearcher s) {
+      s.highlightAll();
+   }
+
+   /**
+    * Continues the highlighting with the specified
+    * <code>SyntaxSearcher</code> which was used to highlight a copy
+    * of the text. The copy must still equal the text.
+    *
+    * @param s  the SyntaxSearcher created by {@link #createSearcher}
+    */
+   public void adoptSearcher(SyntaxSearcher s) {
+      s.setStyledText(txt);
+      searcher = s;
    }
 
    /**
@@ -53,17 +148,16 @@ public class SyntaxHighlighter {
     * @param isNewline  if the change is a newline character
     */
    public void highlight(int chgPos, boolean isNewline) {
-      int lineStart = LinesFinder.lastNewline(txt.text(), chgPos);
+      int lineStart = LinesFinder.lastNewline(txt.textView(), chgPos);
       String scn;
       if (!isNewline) {
-         scn = LinesFinder.line(txt.text(), lineStart);
+         scn = LinesFinder.line(txt.textView(), lineStart);
       }
       else {
-         int lineEnd = LinesFinder.nextNewline(txt.text(), chgPos + 1);
-         scn = txt.text().substring(lineStart + 1, lineEnd);
+         int lineEnd = LinesFinder.nextNewline(txt.textView(), chgPos + 1);
+         scn = txt.textView().subSequence(lineStart + 1, lineEnd).toString();
       }
-      searcher.setTextParams(scn, chgPos, lineStart + 1);
-      hl.highlight(searcher, attr);
+      highlightSection(scn, chgPos, lineStart + 1);
    }
 
    /**
@@ -76,10 +170,47 @@ public class SyntaxHighlighter {
     * @param chgPos  the position where the change starts
     */
    public void highlight(String change, int chgPos) {
-      int linesStart = LinesFinder.lastNewline(txt.text(), chgPos);
+      int linesStart = LinesFinder.lastNewline(txt.textView(), chgPos);
       int length = chgPos - linesStart + change.length();
-      String scn = LinesFinder.lines(txt.text(), linesStart, length);
-      searcher.setTextParams(scn, chgPos, linesStart + 1);
-      hl.highlight(searcher, attr);
+      String scn = LinesFinder.lines(txt.textView(), linesStart, length);
+      highlightSection(scn, chgPos, linesStart + 1);
+   }
+
+   //
+   //--private--/
+   //
+
+   private void highlightSection(String scn, int chgPos, int scnStart) {
+      txt.startBuffering();
+      try {
+         searcher.setTextParams(scn, chgPos, scnStart);
+         hl.highlight(searcher, attr);
+         if (lineIndex != null) {
+            repairChangedLines();
+         }
+      }
+      finally {
+         txt.applyBuffered();
+      }
+   }
+
+   private void repairChangedLines() {
+      LineStates states = searcher.lineStates();
+      for (int i = 0; i < MAX_REPAIRS; i++) {
+         int[] lines = states.update(lineIndex);
+         if (lines == null) {
+            return;
+         }
+         int start = lineIndex.lineStart(lines[0]);
+         int end = lineIndex.lineEnd(lines[1]);
+         if (start >= searcher.updatedStart() && end <= searcher.updatedEnd()) {
+            return;
+         }
+         searcher.setTextParams(txt.textView().subSequence(start, end).toString(),
+               start, start);
+         hl.highlight(searcher, attr);
+         states.markDirty(lines[0], lines[1]);
+      }
+      searcher.highlightAll();
    }
 }
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 
 //--Eadgyth--/
 import eg.utils.LinesFinder;
+import eg.utils.TextUtils;
 import eg.document.styledtext.StyledText;
 import eg.document.styledtext.Attributes;
 
@@ -15,7 +16,15 @@ import eg.document.styledtext.Attributes;
  */
 public class SyntaxSearcher {
 
-   private final StyledText txt;
+   private static final KeywordMatcher BRACKETS = new KeywordMatcher(false);
+   private static final KeywordMatcher BRACES = new KeywordMatcher(false);
+
+   static {
+      BRACKETS.addSigns(new String[] {"(", ")"});
+      BRACES.addSigns(new String[] {"{", "}"});
+   }
+
+   private StyledText txt;
    private final Attributes attr;
 
    private final StringMap quotes = new StringMap();
@@ -23,21 +32,18 @@ public class SyntaxSearcher {
    private final StringOperatorMap stringOp = new StringOperatorMap();
    private final StringMap cData = new StringMap();
    private final List<Integer> lineCmnts = new ArrayList<>();
+   private final LineStates lineStates = new LineStates();
 
    private Highlighter hl;
    private String section = "";
    private int chgPos;
    private int scnStart;
-   private String lCaseText;
+   private CharSequence lCaseText;
    private boolean isTypeMode = false;
-   private boolean isRepair = false;
    private boolean isInnerSection = false;
    private boolean quoteInSection;
-   private int nTriQuote;
-   private int nCData;
-   private int nQuote;
-   private int nLineCmnt;
-   private int nBlockCmnt;
+   private int updatedStart;
+   private int updatedEnd;
    private int condition = 0;
 
    /**
@@ -62,6 +68,65 @@ public class SyntaxSearcher {
          txt.resetAttributes();
       }
       this.hl = hl;
+      lineStates.discard();
+   }
+
+   /**
+    * Sets the styled text whose text equals the text of the styled
+    * text this searcher was used for so far. The state of the search
+    * is kept.
+    *
+    * @param txt  the StyledText; must have the same Attributes
+    */
+   void setStyledText(StyledText txt) {
+      if (txt.attributes() != attr) {
+         throw new IllegalArgumentException(
+               "The styled text has different attributes");
+      }
+      this.txt = txt;
+   }
+
+   /**
+    * Highlights the entire text
+    */
+   void highlightAll() {
+      if (hl == null) {
+         throw new IllegalStateException("No Highlighter is set");
+      }
+      setTextParams(txt.text(), 0, 0);
+      hl.highlight(this, attr);
+      lineStates.storeAll(txt.textView());
+   }
+
+   /**
+    * Returns the states at the ends of lines
+    *
+    * @return  the LineStates
+    */
+   LineStates lineStates() {
+      return lineStates;
+   }
+
+   /**
+    * Returns the start of the section in which the attributes were
+    * reset and all text elements were searched in the last
+    * highlighting
+    *
+    * @return  the start position
+    */
+   int updatedStart() {
+      return updatedStart;
+   }
+
+   /**
+    * Returns the end of the section in which the attributes were
+    * reset and all text elements were searched in the last
+    * highlighting
+    *
+    * @return  the end position
+    */
+   int updatedEnd() {
+      return updatedEnd;
    }
 
    /**
@@ -77,7 +142,10 @@ public class SyntaxSearcher {
       this.section = section;
       this.chgPos = chgPos;
       this.scnStart = scnStart;
-      isTypeMode = txt.text().length() > section.length();
+      isTypeMode = txt.textView().length() > section.length();
+      if (!isInnerSection) {
+         lineStates.clearRanges();
+      }
       lineCmnts.clear();
       triQuotes.reset();
       stringOp.reset();
@@ -89,16 +157,16 @@ public class SyntaxSearcher {
     * Modifies the section to update for markup text elements
     */
    public void setMarkupSection() {
-      if (!isTypeMode || isRepair) {
+      if (!isTypeMode) {
          return;
       }
-      int start = txt.text().lastIndexOf('<', chgPos);
+      int start = TextUtils.lastIndexOf(txt.textView(), '<', chgPos);
       if (start == -1) {
          start = 0;
       }
       int end = markupTagEnd(scnStart + section.length() + 1);
       scnStart = start;
-      section = txt.text().substring(start, end);
+      section = txt.textView().subSequence(start, end).toString();
    }
 
    /**
@@ -109,7 +177,7 @@ public class SyntaxSearcher {
     * @param mark  the mark
     */
    public void setBlockSection(String mark) {
-      if (!isTypeMode || isRepair) {
+      if (!isTypeMode) {
          return;
       }
       setBlockSection(mark, true);
@@ -120,6 +188,10 @@ public class SyntaxSearcher {
     */
    public void resetAttributes() {
       txt.resetAttributes(scnStart, section.length());
+      if (!isInnerSection) {
+         updatedStart = scnStart;
+         updatedEnd = scnStart + section.length();
+      }
    }
 
    /**
@@ -142,16 +214,15 @@ public class SyntaxSearcher {
     * with single quotes; false for double quotes only
     */
    public void tripleQuoteTextBlocks(boolean inclSingleQuotes) {
-      int i = -1;
-      int count = 0;
       int start = 0;
-      boolean change = false;
-      while (start != -1 && ! change) {
-         int iDouble = txt.text().indexOf(SyntaxConstants.TRI_DOUBLE_QUOTE, start);
+      while (start != -1) {
+         int iDouble = TextUtils.indexOf(txt.textView(),
+               SyntaxConstants.TRI_DOUBLE_QUOTE, start);
          String mark = SyntaxConstants.TRI_DOUBLE_QUOTE;
          boolean isDouble = true;
          if (inclSingleQuotes) {
-            int iSingle = txt.text().indexOf(SyntaxConstants.TRI_SINGLE_QUOTE, start);
+            int iSingle = TextUtils.indexOf(txt.textView(),
+                  SyntaxConstants.TRI_SINGLE_QUOTE, start);
             isDouble = SyntaxUtils.firstOccurence(iDouble, iSingle);
             start = isDouble ? iDouble : iSingle;
             mark = isDouble ? mark : SyntaxConstants.TRI_SINGLE_QUOTE;
@@ -161,30 +232,24 @@ public class SyntaxSearcher {
          }
          if (start != -1) {
             int len = 2;
-            int lc = hl.behindLineCmntMark(txt.text(), start);
-            int bc = hl.inBlockCmntMarks(txt.text(), start);
+            int lc = hl.behindLineCmntMark(txt.textView(), start);
+            int bc = hl.inBlockCmntMarks(txt.textView(), start);
             boolean inCmnt = (lc != -1 && !inQuotes(lc)) || (bc != -1 && !inQuotes(bc));
             if (!inCmnt && isValid(start)) {
-               count++;
-               int end = txt.text().indexOf(mark, start + 3);
+               int end = TextUtils.indexOf(txt.textView(), mark, start + 3);
                if (end != -1) {
-                  i++;
-                  count++;
                   len = end - start + 3;
                   triQuotes.add(start, end);
-                  change = !isRepair && !inclSingleQuotes
-                        &&triQuotes.quoteMarkChange(i, isDouble);
-
+                  if (!isInnerSection) {
+                     lineStates.addRange(isDouble ? LineStates.TRI_DOUBLE_QUOTE
+                           : LineStates.TRI_SINGLE_QUOTE, start, end);
+                  }
                   txt.setAttributes(start, len, attr.orangePlain);
                }
             }
             start += len;
          }
       }
-      if (nTriQuote != count || change) {
-         repair(txt.text(), 0);
-      }
-      nTriQuote = count;
    }
 
    /**
@@ -194,10 +259,17 @@ public class SyntaxSearcher {
     * @param hds  the reference to HeredocSearch
     */
    public void mapHeredocs(HeredocSearch hds) {
-      String text = isInnerSection ? section : txt.text();
+      CharSequence text = isInnerSection ? section : txt.textView();
       int start = isInnerSection ? scnStart : 0;
-      if (stringOp.addHeredocs(hds, text, start, isRepair)) {
-         repair(txt.text(), 0);
+      stringOp.addHeredocs(hds, text, start);
+      if (!isInnerSection) {
+         StringMap heredocs = stringOp.heredocs();
+         for (int i = 0; i < heredocs.size(); i++) {
+            //
+            // include the end of the line with the heredoc tag
+            lineStates.addRange(LineStates.HEREDOC, heredocs.start(i) - 1,
+                  heredocs.end(i));
+         }
       }
    }
 
@@ -208,8 +280,13 @@ public class SyntaxSearcher {
     * @param qos  the reference to QuoteOperatorSearch
     */
    public void mapQuoteOperators(QuoteOperatorSearch qos) {
-      if (stringOp.addQuoteOperators(qos, txt.text(), isRepair)) {
-         repair(txt.text(), 0);
+      stringOp.addQuoteOperators(qos, txt.textView());
+      if (!isInnerSection) {
+         StringMap quoteOprs = stringOp.quoteOperators();
+         for (int i = 0; i < quoteOprs.size(); i++) {
+            lineStates.addRange(LineStates.QUOTE_OPERATOR, quoteOprs.start(i),
+                  quoteOprs.end(i));
+         }
       }
    }
 
@@ -240,7 +317,7 @@ public class SyntaxSearcher {
             quote(section, scnStart, attr.orangePlain);
          }
          else {
-            quote(txt.text(), 0, attr.orangePlain);
+            quote(txt.textView(), 0, attr.orangePlain);
          }
       }
    }
@@ -252,19 +329,17 @@ public class SyntaxSearcher {
     * @param marks  the possible marks for a line comment start
     */
    public void lineComments(String[] marks) {
-      String scn = isInnerSection ? section : txt.text();
-      int count = 0;
+      CharSequence scn = isInnerSection ? section : txt.textView();
       for (String mark : marks) {
          int start = 0;
          while (start != -1) {
             int len = mark.length();
-            start = scn.indexOf(mark, start);
+            start = TextUtils.indexOf(scn, mark, start);
             if (start != -1) {
-               count++;
                int absStart = isInnerSection ? start + scnStart : start;
                if (!inString(absStart, false) && isValid(absStart)) {
                   lineCmnts.add(absStart);
-                  int lineEnd = scn.indexOf('\n', start);
+                  int lineEnd = TextUtils.indexOf(scn, '\n', start);
                   len = lineEnd != -1 ? lineEnd - start : scn.length() - start;
                   if (scnStart <= absStart && absStart <= scnStart + section.length()) {
                      txt.setAttributes(absStart, len, attr.greenPlain);
@@ -274,47 +349,31 @@ public class SyntaxSearcher {
             }
          }
       }
-      if (!quoteInSection && nLineCmnt != count) {
-         repair(txt.text(), 0);
-      }
-      if (!isInnerSection) {
-         nLineCmnt = count;
-      }
    }
 
    /**
-    * Searches and highlights keywords.
-    * Calls {@link Highlighter#isValid}
-    *
-    * @param keys  the array of keywords
-    * @param nonStart  the characters that must not precede a
-    * keyword. Can be null.
-    * @param set  the SimpleAttributeSet set on the keywords
-    */
-   public void keywords(String[] keys, char[] nonStart, SimpleAttributeSet set) {
-      for (String s : keys) {
-         key(s, true, nonStart, set);
-      }
-   }
-
-   /**
-    * Searches and highlights keywords without case sensitivity.
+    * Searches and highlights the keywords of all groups in the
+    * specified <code>KeywordMatcher</code> in one pass.
     * Calls {@link Highlighter#isValid}.
     *
-    * @param keys  the array of keywords
-    * @param nonStart  the characters that must not precede a
-    * keyword. Can be null.
-    * @param set  the SimpleAttributeSet set on the keywords
+    * @param matcher  the KeywordMatcher
+    * @param sets  the SimpleAttributeSets set on the keywords in the
+    * order of the groups in <code>matcher</code>
     */
-   public void keywordsIgnoreCase(String[] keys, char[] nonStart,
-         SimpleAttributeSet set) {
-
-      String scn = section;
-      section = section.toLowerCase();
-      for (String s : keys) {
-         key(s, true, nonStart, set);
-      }
-      section = scn;
+   public void keywords(KeywordMatcher matcher, SimpleAttributeSet... sets) {
+      if (sets.length != matcher.groupCount()) {
+         throw new IllegalArgumentException(
+               "The number of attribute sets does not match the number"
+               + " of keyword groups");
+      }
+      matcher.search(section, (start, length, group) -> {
+         int absStart = start + scnStart;
+         if (isValid(absStart) && !inString(absStart, false)
+               && !inLineCmnt(absStart)) {
+
+            txt.setAttributes(absStart, length, sets[group]);
+         }
+      });
    }
 
    /**
@@ -368,8 +427,7 @@ public class SyntaxSearcher {
     * Calls {@link Highlighter#isValid}.
     */
    public void braces() {
-      key("{", false, null, attr.bracketsBold);
-      key("}", false, null, attr.bracketsBold);
+      keywords(BRACES, attr.bracketsBold);
    }
 
    /**
@@ -377,8 +435,7 @@ public class SyntaxSearcher {
     * Calls {@link Highlighter#isValid}.
     */
    public void brackets() {
-      key("(", false, null, attr.bracketsBold);
-      key(")", false, null, attr.bracketsBold);
+      keywords(BRACKETS, attr.bracketsBold);
    }
 
    /**
@@ -392,37 +449,27 @@ public class SyntaxSearcher {
          boolean ignoreQuotes) {
 
       setBlockSection(blockEnd, ignoreQuotes);
-      int count = 0;
+      if (!isInnerSection) {
+         lineStates.addBlockScope(scnStart, scnStart + section.length());
+      }
       int start = 0;
       while (start != -1) {
          start = nextBlockCmntStart(blockStart, start, ignoreQuotes);
          int len = 1;
          if (start != -1) {
-            count++;
             int searchStart = start + blockStart.length();
             int end = section.indexOf(blockEnd, searchStart);
-            int nextStart = nextBlockCmntStart(blockStart, searchStart, ignoreQuotes);
-            if (end > nextStart && nextStart != -1) {
-               count++;
-            }
             if (end != -1) {
-               count++;
-               int nextEnd = section.indexOf(blockEnd, end + blockEnd.length());
-               if (nextEnd != -1 && (nextStart == -1 || nextEnd < nextStart)) {
-                  count++;
-               }
                len = end - start + blockEnd.length();
                txt.setAttributes(start + scnStart, len, attr.greenPlain);
+               if (!isInnerSection) {
+                  lineStates.addRange(LineStates.BLOCK_CMNT, start + scnStart,
+                        end + scnStart);
+               }
             }
             start += len;
          }
       }
-      if (nBlockCmnt != count) {
-         repair(section, scnStart);
-      }
-      if (!isInnerSection) {
-         nBlockCmnt = count;
-      }
    }
 
    /**
@@ -435,11 +482,11 @@ public class SyntaxSearcher {
     */
    public void markup(boolean html) {
       quoteInSection = true;
-      String scn = html ? section.toLowerCase() : section;
-      lCaseText = html ? txt.text().toLowerCase() : txt.text();
+      CharSequence scn = html ? new LowerCaseText(section) : section;
+      lCaseText = html ? new LowerCaseText(txt.textView()) : txt.textView();
       int start = 0;
       while (start != -1) {
-         start = scn.indexOf('<', start);
+         start = TextUtils.indexOf(scn, '<', start);
          if (start != -1) {
             int len = 0;
             boolean isEndTag = scn.length() > start + 1 && scn.charAt(start + 1) == '/';
@@ -455,7 +502,7 @@ public class SyntaxSearcher {
                   if (!isEndTag) {
                      int absStart = start + scnStart;
                      int tagEnd = markupTagEnd(absStart + 1);
-                     String tag = lCaseText.substring(absStart, tagEnd);
+                     String tag = lCaseText.subSequence(absStart, tagEnd).toString();
                      quote(tag, absStart, attr.purplePlain);
                      if (html) {
                         htmlAttributes(tag, absStart);
@@ -491,25 +538,26 @@ public class SyntaxSearcher {
 
       int start = 0;
       while (start != -1) {
-         start = lCaseText.indexOf(startTag, start);
+         start = TextUtils.indexOf(lCaseText, startTag, start);
          int len = 0;
          if (start != -1) {
-            if (-1 == SyntaxUtils.inBlock(txt.text(),
+            if (-1 == SyntaxUtils.inBlock(txt.textView(),
                   SyntaxConstants.HTML_BLOCK_CMNT_START,
                   SyntaxConstants.HTML_BLOCK_CMNT_END, start)) {
 
                int searchStart = start + 1;
-               int end = SyntaxUtils.nextBlockEnd(txt.text(), searchStart, startTag,
+               int end = SyntaxUtils.nextBlockEnd(txt.textView(), searchStart, startTag,
                      endTag);
 
                if (end != -1) {
                   int startTagEnd = reqClosingBracket ?
-                        1 + SyntaxUtils.nextBlockEnd(txt.text(), searchStart, "<", ">")
+                        1 + SyntaxUtils.nextBlockEnd(txt.textView(), searchStart, "<", ">")
                         : start + startTag.length();
 
                   if (startTagEnd != 0) {
+                     lineStates.addRange(LineStates.INNER_SECTION, startTagEnd, end);
                      isInnerSection = true;
-                     String scn = txt.text().substring(startTagEnd, end);
+                     String scn = txt.textView().subSequence(startTagEnd, end).toString();
                      setTextParams(scn, chgPos, startTagEnd);
                      Highlighter hlCurr = hl;
                      hl = hlSection;
@@ -529,23 +577,6 @@ public class SyntaxSearcher {
    //--private--/
    //
 
-   private void key(String key, boolean word, char[] nonStart, SimpleAttributeSet set) {
-      int start = 0;
-      while (start != -1) {
-         start = section.indexOf(key, start);
-         if (start != -1) {
-            int absStart = start + scnStart;
-            if ((!word || SyntaxUtils.isWord(section, start, key.length(), nonStart))
-                  && isValid(absStart) && !inString(absStart, false)
-                  && !inLineCmnt(absStart)) {
-
-               txt.setAttributes(absStart, key.length(), set);
-            }
-            start += key.length();
-         }
-      }
-   }
-
    private void signedVariable(char sign, char[] endMarks, char[] successors,
          SimpleAttributeSet set) {
 
@@ -582,17 +613,17 @@ public class SyntaxSearcher {
    }
 
    private int markupTagEnd(int pos) {
-      int end = SyntaxUtils.nextBlockEnd(txt.text(), pos, "<", ">");
+      int end = SyntaxUtils.nextBlockEnd(txt.textView(), pos, "<", ">");
       if (end == -1) {
-         end = txt.text().indexOf('<', pos);
+         end = TextUtils.indexOf(txt.textView(), '<', pos);
          if (end == -1) {
-            end = txt.text().length();
+            end = txt.textView().length();
          }
       }
       return end;
    }
 
-   private int xmlKeywordLength(String section, int start, boolean html) {
+   private int xmlKeywordLength(CharSequence section, int start, boolean html) {
       return html ?
             SyntaxUtils.wordLength(section, start, SyntaxConstants.HTML_TAGS)
             : SyntaxUtils.sectionLength(section, start,
@@ -628,47 +659,34 @@ public class SyntaxSearcher {
    }
 
    private void cDataTextBlock(String startTag, String endTag) {
-      int count = 0;
       int start = 0;
       while (start != -1) {
-         start = txt.text().indexOf(startTag, start);
+         start = TextUtils.indexOf(txt.textView(), startTag, start);
          int len = 1;
          if (start != -1) {
-            count++;
             int tagEnd = start + startTag.length();
-            int end = txt.text().indexOf(endTag, tagEnd);
-            int nextStart = txt.text().indexOf(startTag, tagEnd);
-            if (end > nextStart && nextStart != -1) {
-               count++;
-            }
+            int end = TextUtils.indexOf(txt.textView(), endTag, tagEnd);
             if (end != -1) {
-               int nextEnd = txt.text().indexOf(endTag, end + endTag.length());
-               if (nextEnd != -1 && (nextStart == -1 || nextEnd < nextStart)) {
-                  count++;
-               }
                len = end - start + endTag.length();
-               count++;
                cData.add(start, end);
+               if (!isInnerSection) {
+                  lineStates.addRange(LineStates.CDATA, start, end);
+               }
                txt.resetAttributes(start, len);
             }
             start += len;
          }
       }
-      if (nCData != count) {
-         repair(txt.text(), 0);
-      }
-      nCData = count;
    }
 
-   private void quote(String scn, int scnPos, SimpleAttributeSet set) {
-      int i = -1;
-      int count = 0;
+   private void quote(CharSequence scn, int scnPos, SimpleAttributeSet set) {
+      boolean isMapped = !quoteInSection && !isInnerSection;
       int check = -1;
+      int checkStart = -1;
       int start = 0;
-      boolean change = false;
-      while (start != -1 && !change) {
-         int iDouble = scn.indexOf(SyntaxConstants.DOUBLE_QUOTE, start);
-         int iSingle = scn.indexOf(SyntaxConstants.SINGLE_QUOTE, start);
+      while (start != -1) {
+         int iDouble = TextUtils.indexOf(scn, SyntaxConstants.DOUBLE_QUOTE, start);
+         int iSingle = TextUtils.indexOf(scn, SyntaxConstants.SINGLE_QUOTE, start);
          boolean isDouble = SyntaxUtils.firstOccurence(iDouble, iSingle);
          start = isDouble ? iDouble : iSingle;
          char mark = isDouble ? SyntaxConstants.DOUBLE_QUOTE
@@ -678,20 +696,24 @@ public class SyntaxSearcher {
          if (start != -1) {
             int len = 1;
             if (quotable(check, absStart) && isValid(absStart)) {
-               count++;
                int end = SyntaxUtils.nextNotEscaped(scn, mark, start + 1);
                if (end != -1) {
-                  i++;
-                  count++;
                   int absEnd = end + scnPos;
                   len = absEnd - absStart + 1;
                   quotes.add(absStart, absEnd);
-                  change = isTypeMode && !isInnerSection
-                           && !isRepair && quotes.quoteMarkChange(i, isDouble);
-
+                  if (isMapped) {
+                     if (checkStart != -1) {
+                        lineStates.addRange(LineStates.QUOTE_CHECK, checkStart,
+                              absStart);
+                     }
+                     lineStates.addRange(isDouble ? LineStates.DOUBLE_QUOTE
+                           : LineStates.SINGLE_QUOTE, absStart, absEnd);
+                  }
                   check = quotableStart(absEnd);
+                  checkStart = check != -1 && !isInLineCmnt(absEnd)
+                        ? absEnd : -1;
                   int scnEnd = scnStart + section.length();
-                  if (quoteInSection || isRepair
+                  if (quoteInSection
                         || ((absStart >= scnStart && scnEnd > absStart)
                         || (scnStart > absStart && scnEnd < absEnd)
                         || (absEnd >= scnStart && absEnd <= scnEnd))) {
@@ -703,10 +725,17 @@ public class SyntaxSearcher {
             start += len;
          }
       }
-      if (!quoteInSection && (nQuote != count || change)) {
-         repair(txt.text(), 0);
+      if (isMapped && checkStart != -1) {
+         lineStates.addRange(LineStates.QUOTE_CHECK, checkStart,
+               txt.textView().length());
       }
-      nQuote = count;
+   }
+
+   private boolean isInLineCmnt(int pos) {
+      CharSequence text = isInnerSection ? section : txt.textView();
+      int diff = isInnerSection ? scnStart : 0;
+      return hl.inBlockCmntMarks(text, pos - diff) == -1
+            && stringOp.inEitherString(pos) == -1;
    }
 
    private boolean quotable(int prevMark, int pos) {
@@ -715,7 +744,7 @@ public class SyntaxSearcher {
    }
 
    private int quotableStart(int pos) {
-      String text = isInnerSection ? section : txt.text();
+      CharSequence text = isInnerSection ? section : txt.textView();
       int diff = isInnerSection ? scnStart : 0;
       int i = hl.inBlockCmntMarks(text, pos - diff);
       if (i != -1) {
@@ -739,11 +768,11 @@ public class SyntaxSearcher {
    }
 
    private void setBlockSection(String blockEnd, boolean ignoreQuotes) {
-      if (!isTypeMode || isInnerSection || isRepair) {
+      if (!isTypeMode || isInnerSection) {
          return;
       }
       int start = 0;
-      int end = txt.text().length();
+      int end = txt.textView().length();
       int lastEnd = lastBlockCmntEnd(blockEnd, scnStart, ignoreQuotes);
       if (lastEnd != -1) {
          if (lastEnd == scnStart) {
@@ -753,12 +782,13 @@ public class SyntaxSearcher {
             start = lastEnd + blockEnd.length();
          }
       }
-      int nextEnd = txt.text().indexOf(blockEnd, scnStart + section.length());
+      int nextEnd = TextUtils.indexOf(txt.textView(), blockEnd,
+            scnStart + section.length());
       if (nextEnd != -1) {
-         end = LinesFinder.nextNewline(txt.text(), nextEnd);
+         end = LinesFinder.nextNewline(txt.textView(), nextEnd);
       }
       scnStart = start;
-      section = txt.text().substring(start, end);
+      section = txt.textView().subSequence(start, end).toString();
    }
 
    private int nextBlockCmntStart(String blockStart, int pos, boolean ignoreQuotes) {
@@ -772,9 +802,9 @@ public class SyntaxSearcher {
    }
 
    private int lastBlockCmntEnd(String blockEnd, int pos, boolean ignoreQuotes) {
-      int i = txt.text().lastIndexOf(blockEnd, pos);
+      int i = TextUtils.lastIndexOf(txt.textView(), blockEnd, pos);
       while (i != -1 && (inString(i, ignoreQuotes) || inLineCmnt(i))) {
-         i = txt.text().lastIndexOf(blockEnd, i - blockEnd.length());
+         i = TextUtils.lastIndexOf(txt.textView(), blockEnd, i - blockEnd.length());
       }
       return i;
    }
@@ -801,12 +831,12 @@ public class SyntaxSearcher {
 
    private boolean inQuotes(int pos) {
       return quoteInSection ?
-          SyntaxUtils.isQuotedInLine(txt.text(), pos)
+          SyntaxUtils.isQuotedInLine(txt.textView(), pos)
           : -1 != quotes.inString(pos);
    }
 
    private boolean inLineCmnt(int pos) {
-      int lastNewline = LinesFinder.lastNewline(txt.text(), pos);
+      int lastNewline = LinesFinder.lastNewline(txt.textView(), pos);
       for (int i : lineCmnts) {
          if (i > lastNewline && pos > i) {
             return true;
@@ -815,17 +845,7 @@ public class SyntaxSearcher {
       return false;
    }
 
-   private void repair(String toRepair, int pos) {
-      if (isRepair || !isTypeMode || isInnerSection) {
-         return;
-      }
-      isRepair = true;
-      setTextParams(toRepair, pos, pos);
-      hl.highlight(this, attr);
-      isRepair = false;
-   }
-
    private boolean isValid(int pos) {
-      return hl.isValid(txt.text(), pos, condition);
+      return hl.isValid(txt.textView(), pos, condition);
    }
 }
@@ -1,6 +1,7 @@
 package eg.syntax;
 
 import eg.utils.LinesFinder;
+import eg.utils.TextUtils;
 
 /**
  * Static methods to search for text elements
@@ -17,7 +18,7 @@ public class SyntaxUtils {
     * a word, in addition to letters and digits. Can be null
     * @return  true if the section is a word, false otherwise
     */
-   public static boolean isWord(String text, int pos, int length, char[] nonStart) {
+   public static boolean isWord(CharSequence text, int pos, int length, char[] nonStart) {
       boolean startMatches = isWordStart(text, pos, nonStart);
       boolean endMatches   = isWordEnd(text, pos + length);
       return startMatches && endMatches;
@@ -34,7 +35,7 @@ public class SyntaxUtils {
     * @return  true if the position is a word start, false
     * otherwise
     */
-   public static boolean isWordStart(String text, int pos, char[] nonStart) {
+   public static boolean isWordStart(CharSequence text, int pos, char[] nonStart) {
       boolean isWord = true;
       if (pos > 0) {
          char c = text.charAt(pos - 1);
@@ -57,7 +58,7 @@ public class SyntaxUtils {
     * @param pos  the position
     * @return  true if position is a word end, false otherwise
     */
-   public static boolean isWordEnd(String text, int pos) {
+   public static boolean isWordEnd(CharSequence text, int pos) {
       if (text.length() > pos) {
          return !isLetterOrDigit(text.charAt(pos));
       }
@@ -77,10 +78,10 @@ public class SyntaxUtils {
     * @return  the length of the section; 0 if a keyword is not
     * found
     */
-   public static int wordLength(String text, int pos, String[] keywords) {
+   public static int wordLength(CharSequence text, int pos, String[] keywords) {
       int l = 0;
       for (String s : keywords) {
-         if (text.startsWith(s, pos) && s.length() > l) {
+         if (TextUtils.startsWith(text, s, pos) && s.length() > l) {
             l = s.length();
          }
       }
@@ -99,7 +100,7 @@ public class SyntaxUtils {
     * directly follow pos
     * @return  the length of the section
     */
-   public static int sectionLength(String text, int pos, char[] endMarks,
+   public static int sectionLength(CharSequence text, int pos, char[] endMarks,
          char[] successors) {
 
       boolean found = false;
@@ -133,7 +134,7 @@ public class SyntaxUtils {
     * @param endMark  the characters that mark the end of the section
     * @return  the length of the section
     */
-   public static int sectionLengthSkipEscaped(String text, int pos, char endMark) {
+   public static int sectionLengthSkipEscaped(CharSequence text, int pos, char endMark) {
       int start = pos + 1;
       int i;
       for (i = start; i < text.length(); i++) {
@@ -153,7 +154,7 @@ public class SyntaxUtils {
     * @param targets  the target characters
     * @return  true if equal
     */
-   public static boolean isCharEqualTo(String text, int pos, char[] targets) {
+   public static boolean isCharEqualTo(CharSequence text, int pos, char[] targets) {
       char c = text.charAt(pos);
       for (int i = 0; i < targets.length; i++) {
          if (c == targets[i]) {
@@ -187,13 +188,13 @@ public class SyntaxUtils {
     * @param pos  the position
     * @return  true if inside a block, false otherwise
     */
-    public static int inBlock(String text, String blockStart, String blockEnd,
+    public static int inBlock(CharSequence text, String blockStart, String blockEnd,
          int pos) {
 
       int lastStart = SyntaxUtils.lastBlockStart(text, pos, blockStart, blockEnd);
       int nextEnd = -1;
       if (lastStart != -1) {
-         nextEnd = text.indexOf(blockEnd, pos);
+         nextEnd = TextUtils.indexOf(text, blockEnd, pos);
       }
       if ((lastStart != -1 && nextEnd != -1) && nextEnd != lastStart) {
          return lastStart;
@@ -214,11 +215,11 @@ public class SyntaxUtils {
     * @return  the position of the last block start. -1 if a block
     * end is closer than a block start or if no block start is found
     */
-   public static int lastBlockStart(String text, int pos, String blockStart,
+   public static int lastBlockStart(CharSequence text, int pos, String blockStart,
          String blockEnd) {
 
-      int lastStart = text.lastIndexOf(blockStart, pos);
-      int lastEnd = text.lastIndexOf(blockEnd, pos);
+      int lastStart = TextUtils.lastIndexOf(text, blockStart, pos);
+      int lastEnd = TextUtils.lastIndexOf(text, blockEnd, pos);
       if (lastStart < lastEnd) {
          lastStart = -1;
       }
@@ -235,11 +236,11 @@ public class SyntaxUtils {
     * @return  the position of the next block end. -1 if a block
     * start is closer than a block end or if no block end is found
     */
-    public static int nextBlockEnd(String text, int pos, String blockStart,
+    public static int nextBlockEnd(CharSequence text, int pos, String blockStart,
          String blockEnd) {
 
-      int nextEnd = text.indexOf(blockEnd, pos);
-      int nextStart = text.indexOf(blockStart, pos);
+      int nextEnd = TextUtils.indexOf(text, blockEnd, pos);
+      int nextStart = TextUtils.indexOf(text, blockStart, pos);
       if (nextEnd > nextStart & nextStart != -1) {
          nextEnd = -1;
       }
@@ -256,9 +257,9 @@ public class SyntaxUtils {
     * @return  the position of the last mark, -1 if the mark is not
     * found
     */
-   public static int behindMark(String text, String mark, int pos) {
+   public static int behindMark(CharSequence text, String mark, int pos) {
       int lineStart = LinesFinder.lastNewline(text, pos) + 1;
-      int i = text.lastIndexOf(mark, pos);
+      int i = TextUtils.lastIndexOf(text, mark, pos);
       return (i != -1 && i >= lineStart) ? i : -1;
    }
 
@@ -271,7 +272,7 @@ public class SyntaxUtils {
     * @param pos  the position
     * @return  true if quoted
     */
-   public static boolean isQuotedInLine(String text, int pos) {
+   public static boolean isQuotedInLine(CharSequence text, int pos) {
       String line;
       int relStart;
       line = LinesFinder.lineAtPos(text, pos);
@@ -287,12 +288,12 @@ public class SyntaxUtils {
     * @param pos  the position
     * @return  true if quoted
     */
-   public static boolean isQuoted(String text, int pos) {
+   public static boolean isQuoted(CharSequence text, int pos) {
       int i = 0;
       boolean found = false;
       while (i != -1 && !found) {
-         int startDouble = text.indexOf(SyntaxConstants.DOUBLE_QUOTE, i);
-         int startSingle = text.indexOf(SyntaxConstants.SINGLE_QUOTE, i);
+         int startDouble = TextUtils.indexOf(text, SyntaxConstants.DOUBLE_QUOTE, i);
+         int startSingle = TextUtils.indexOf(text, SyntaxConstants.SINGLE_QUOTE, i);
          boolean isDouble = SyntaxUtils.firstOccurence(startDouble, startSingle);
          i = isDouble ? startDouble : startSingle;
          char endMark = isDouble ?
@@ -328,10 +329,10 @@ public class SyntaxUtils {
     * @param pos  the position where the search starts
     * @return  the position
     */
-    public static int nextNotEscaped(String text, char toSearch, int pos) {
-      int index = text.indexOf(toSearch, pos);
+    public static int nextNotEscaped(CharSequence text, char toSearch, int pos) {
+      int index = TextUtils.indexOf(text, toSearch, pos);
       while (SyntaxUtils.isEscaped(text, index)) {
-         index = text.indexOf(toSearch, index + 1);
+         index = TextUtils.indexOf(text, toSearch, index + 1);
       }
       return index;
    }
@@ -344,7 +345,7 @@ public class SyntaxUtils {
     * @param lineEnd  true stop at the next newline character
     * @return  the position
     */
-   public static int nextNonSpace(String text, int pos, boolean lineEnd) {
+   public static int nextNonSpace(CharSequence text, int pos, boolean lineEnd) {
       if (pos == text.length()) {
          return pos;
       }
@@ -372,7 +373,7 @@ public class SyntaxUtils {
    //--private--/
    //
 
-   private static boolean isEscaped(String text, int pos) {
+   private static boolean isEscaped(CharSequence text, int pos) {
       if (pos > 0) {
          return text.charAt(pos - 1) == '\\' && !isEscaped(text, pos - 1);
       }
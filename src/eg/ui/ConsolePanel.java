@@ -1,57 +1,230 @@
 package eg.ui;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 
+import java.awt.event.ActionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Box;
 import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JToolBar;
 import javax.swing.JPanel;
-import javax.swing.JTextArea;
+import javax.swing.JTextPane;
 import javax.swing.JScrollPane;
 
 import javax.swing.border.LineBorder;
 
-
 //--Eadgyth--/
 import eg.BackgroundTheme;
 import eg.FunctionalAction;
+import eg.ui.tabpane.ExtTabbedPane;
 import eg.utils.ScreenParams;
 
 /**
- * Defines the panel which contains the text area that functions as the
- * console and a toolbar for actions to run commands.
+ * Defines the panel which contains tabs for text areas that function
+ * as consoles and a toolbar for actions to run commands.
+ * <p>
+ * The button for stopping a process and the label for information
+ * show the state that is set for the text area in the selected tab.
  */
 public class ConsolePanel {
 
    private final JPanel content = UIComponents.grayBorderedPanel();
+   private final JButton enterCmdBt = new JButton("Cmd...");
+   private final JButton runBt = new JButton(IconFiles.RUN_CMD_ICON);
+   private final JButton stopBt = new JButton(IconFiles.STOP_PROCESS_ICON);
    private final JButton closeBt = UIComponents.undecoratedButton();
+   private final JLabel infoLb = new JLabel();
+   private final ExtTabbedPane tabPane = UIComponents.tabPane();
+   private final List<AreaTab> tabs = new ArrayList<>();
+
+   public ConsolePanel() {
+      JButton[] bts = new JButton[] {
+         enterCmdBt, runBt, stopBt
+      };
+      String[] tooltips = new String[] {
+         "Enter and run a system command",
+         "Run a previous system command",
+         "Forcibly quit the process in the selected console"
+      };
+      content.setLayout(new BorderLayout());
+      JToolBar toolbar = UIComponents.toolBar(bts, tooltips, closeBt);
+      toolbar.add(Box.createRigidArea(ScreenParams.scaledDimension(10, 0)),
+            bts.length);
+      toolbar.add(infoLb, bts.length + 1);
+      infoLb.setFont(ScreenParams.SANSSERIF_PLAIN_8);
+      content.add(toolbar, BorderLayout.NORTH);
+      content.add(tabPane, BorderLayout.CENTER);
+      tabPane.showTabbar(true);
+      tabPane.addChangeListener(e -> updateSelected());
+      runBt.setEnabled(false);
+      enterCmdBt.setEnabled(false);
+      stopBt.setEnabled(false);
+   }
 
    /**
-    * Initializes the console content
+    * Adds a tab for the specified text area and selects the tab
     *
+    * @param title  the title of the tab
     * @param area  the text area
-    * @param bts  the array of buttons added to the toolbar
-    * @param tooltips  the tooltips
+    * @param closeAct  the action for closing the tab; null if the
+    * tab cannot be closed
     */
-   public void initContent(JTextArea area, JButton[] bts, String[] tooltips) {
-      content.setLayout(new BorderLayout());
-      JToolBar toolbar = UIComponents.toolBar(bts, tooltips, closeBt);
-      content.add(toolbar, BorderLayout.NORTH);
+   public void addArea(String title, JTextPane area,
+         FunctionalAction closeAct) {
+
+      //
+      // the text pane does not wrap lines if it is contained in a
+      // panel
+      JPanel areaPnl = new JPanel(new BorderLayout());
+      areaPnl.add(area, BorderLayout.CENTER);
       JScrollPane scroll = UIComponents.scrollPane();
-      scroll.setViewportView(area);
-      content.add(scroll, BorderLayout.CENTER);
+      scroll.setViewportView(areaPnl);
 
       area.setFont(ScreenParams.SANSSERIF_PLAIN_8);
       area.setEditable(false);
       area.setFocusable(false);
       BackgroundTheme theme = BackgroundTheme.givenTheme();
       area.setBackground(theme.background());
+      areaPnl.setBackground(theme.background());
       area.setForeground(theme.normalText());
       area.setBorder(new LineBorder(theme.background(), 5));
       area.setCaretColor(theme.normalText());
+
+      tabs.add(new AreaTab(area, scroll));
+      if (closeAct != null) {
+         tabPane.addTab(title, scroll, closeAct);
+      }
+      else {
+         tabPane.addTab(title, scroll);
+         tabPane.setSelectedComponent(scroll);
+      }
+   }
+
+   /**
+    * Removes the tab of the specified text area
+    *
+    * @param area  the text area
+    */
+   public void removeArea(JTextPane area) {
+      AreaTab t = tab(area);
+      tabs.remove(t);
+      tabPane.remove(t.scroll);
    }
 
    /**
-    * Gets this JPanel which contains the text area and the toolbar
+    * Selects the tab of the specified text area
+    *
+    * @param area  the text area
+    */
+   public void selectArea(JTextPane area) {
+      tabPane.setSelectedComponent(tab(area).scroll);
+   }
+
+   /**
+    * Returns the text area in the selected tab
+    *
+    * @return  the text area; null if no tab exists
+    */
+   public JTextPane selectedArea() {
+      Component c = tabPane.getSelectedComponent();
+      for (AreaTab t : tabs) {
+         if (t.scroll == c) {
+            return t.area;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Sets the title of the tab of the specified text area
+    *
+    * @param area  the text area
+    * @param title  the title
+    */
+   public void setTitle(JTextPane area, String title) {
+      int i = tabPane.indexOfComponent(tab(area).scroll);
+      if (tabPane.getTabComponentAt(i) != null) {
+         tabPane.setTitle(i, title);
+      }
+      else {
+         tabPane.setTitleAt(i, title);
+      }
+   }
+
+   /**
+    * Sets the information that is shown if the tab of the specified
+    * text area is selected
+    *
+    * @param area  the text area
+    * @param info  the information
+    */
+   public void setInfo(JTextPane area, String info) {
+      tab(area).info = info;
+      updateSelected();
+   }
+
+   /**
+    * Sets if a process can be stopped if the tab of the specified
+    * text area is selected
+    *
+    * @param area  the text area
+    * @param b  true to enable, false to disable stopping
+    */
+   public void setStoppable(JTextPane area, boolean b) {
+      tab(area).isStoppable = b;
+      updateSelected();
+   }
+
+   /**
+    * Enables actions to enter a new command
+    */
+   public void enableEnterCmdBt() {
+      enterCmdBt.setEnabled(true);
+   }
+
+   /**
+    * Enables or disables actions to run a command
+    *
+    * @param b  true to enable, false to disable
+    */
+   public void enableRunBt(boolean b) {
+      runBt.setEnabled(b);
+   }
+
+   /**
+    * Sets the listener for actions to enter and run a new command
+    *
+    * @param al  the {@code ActionListener}
+    */
+   public void setEnterCmdAct(ActionListener al) {
+      enterCmdBt.addActionListener(al);
+   }
+
+   /**
+    * Sets the listener for actions to run a previous command
+    *
+    * @param al  the {@code ActionListener}
+    */
+   public void setRunAct(ActionListener al) {
+      runBt.addActionListener(al);
+   }
+
+   /**
+    * Sets the listener for actions to stop a process
+    *
+    * @param al  the {@code ActionListener}
+    */
+   public void setStopAct(ActionListener al) {
+      stopBt.addActionListener(al);
+   }
+
+   /**
+    * Gets this JPanel which contains the tabs and the toolbar
     *
     * @return  the JPanel
     */
@@ -68,4 +241,43 @@ public class ConsolePanel {
    public void setClosingAct(FunctionalAction act) {
       closeBt.setAction(act);
    }
+
+   //
+   //--private--/
+   //
+
+   private AreaTab tab(JTextPane area) {
+      for (AreaTab t : tabs) {
+         if (t.area == area) {
+            return t;
+         }
+      }
+      throw new IllegalArgumentException("No tab contains the text area");
+   }
+
+   private void updateSelected() {
+      JTextPane area = selectedArea();
+      if (area == null) {
+         infoLb.setText("");
+         stopBt.setEnabled(false);
+      }
+      else {
+         AreaTab t = tab(area);
+         infoLb.setText(t.info);
+         stopBt.setEnabled(t.isStoppable);
+      }
+   }
+
+   private static final class AreaTab {
+
+      final JTextPane area;
+      final JScrollPane scroll;
+      String info = "";
+      boolean isStoppable = false;
+
+      AreaTab(JTextPane area, JScrollPane scroll) {
+         this.area = area;
+         this.scroll = scroll;
+      }
+   }
 }
@@ -233,6 +233,25 @@ public class MainWin {
       statusBar.displayProjectName(projName);
    }
 
+   /**
+    * Displays the memory used to store the undoable edits in the
+    * status bar
+    *
+    * @param bytes  the number of bytes
+    */
+   public void displayUndoMemoryUsage(long bytes) {
+      statusBar.displayUndoMemoryUsage(bytes);
+   }
+
+   /**
+    * Displays a message in the status bar
+    *
+    * @param msg  the message
+    */
+   public void displayMessage(String msg) {
+      statusBar.displayMessage(msg);
+   }
+
    /**
     * Enables or disables to open the project settings window
     * of a project that is newly assigned
@@ -265,6 +284,16 @@ public class MainWin {
       toolBar.enableChangeProjBt(b);
    }
 
+   /**
+    * Enables or disables to open the window for the search in the
+    * files of a project
+    *
+    * @param b  true to enable, false to disable
+    */
+   public void enableProjectSearch(boolean b) {
+      menuBar.projectMenu().enableSearchItm(b);
+   }
+
    /**
     * Enables or disables to compile a project
     *
@@ -0,0 +1,436 @@
+package eg.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.WindowConstants;
+
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableColumnModel;
+
+//--Eadgyth--/
+import eg.filesearch.FileMatch;
+import eg.utils.ScreenParams;
+
+/**
+ * The window for the search of text in the files of a project.
+ * <p>
+ * Found matches are listed in a table by file, line number and text
+ * of the line. A double click on a row or pressing enter opens the
+ * file of the match. In the preview of a replacement the table also
+ * shows the lines in which the matches are replaced.
+ */
+public class ProjectSearchWin {
+
+   private static final String[] COLUMNS = {
+      "File", "Line", "Text", "Replaced text"
+   };
+
+   private final JFrame frame = new JFrame();
+   private final JTextField inputTf = new JTextField();
+   private final JTextField replaceTf = new JTextField();
+   private final JCheckBox cBxWord = new JCheckBox("Only whole word");
+   private final JCheckBox cBxCase = new JCheckBox("Case sensitive");
+   private final JCheckBox cBxRegex = new JCheckBox("Regular expression");
+   private final JButton searchBt = new JButton("Find");
+   private final JButton cancelBt = new JButton("Cancel");
+   private final JButton previewBt = new JButton("Preview replace");
+   private final JButton replaceBt = new JButton("Replace all");
+   private final JLabel statusLb = new JLabel(" ");
+   private final MatchesModel model = new MatchesModel();
+   private final JTable table = new JTable(model);
+
+   private String root = "";
+
+   public ProjectSearchWin() {
+      initFrame();
+      enableCancel(false);
+      replaceBt.setEnabled(false);
+   }
+
+   /**
+    * Sets this frame visible or invisible
+    *
+    * @param b  true to set visible, false to set invisible
+    */
+   public void setVisible(boolean b) {
+      frame.setVisible(b);
+      if (b) {
+         frame.toFront();
+         inputTf.requestFocusInWindow();
+      }
+   }
+
+   /**
+    * Sets the listener for actions to start the search
+    *
+    * @param al  the ActionListener
+    */
+   public void setSearchAct(ActionListener al) {
+      searchBt.addActionListener(al);
+      inputTf.addActionListener(al);
+   }
+
+   /**
+    * Sets the listener for actions to cancel the search
+    *
+    * @param al  the ActionListener
+    */
+   public void setCancelAct(ActionListener al) {
+      cancelBt.addActionListener(al);
+   }
+
+   /**
+    * Sets the listener for actions to preview a replacement
+    *
+    * @param al  the ActionListener
+    */
+   public void setPreviewAct(ActionListener al) {
+      previewBt.addActionListener(al);
+   }
+
+   /**
+    * Sets the listener for actions to carry out a previewed
+    * replacement
+    *
+    * @param al  the ActionListener
+    */
+   public void setReplaceAct(ActionListener al) {
+      replaceBt.addActionListener(al);
+   }
+
+   /**
+    * Sets the consumer for actions to open a match
+    *
+    * @param c  the Consumer that receives the FileMatch
+    */
+   public void setOpenAct(Consumer<FileMatch> c) {
+      table.addMouseListener(new MouseAdapter() {
+
+         @Override
+         public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+               openSelected(c);
+            }
+         }
+      });
+      table.getInputMap(JComponent.WHEN_FOCUSED).put(
+            KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "openMatch");
+
+      table.getActionMap().put("openMatch", new AbstractAction() {
+
+         @Override
+         public void actionPerformed(ActionEvent e) {
+            openSelected(c);
+         }
+      });
+   }
+
+   /**
+    * Sets the root directory of the searched files. Files are shown
+    * by their path relative to the root
+    *
+    * @param root  the root directory
+    * @param name  the name that is shown in the window title
+    */
+   public void setRoot(String root, String name) {
+      this.root = root;
+      frame.setTitle("Find in project - " + name);
+   }
+
+   /**
+    * Returns the entered search term
+    *
+    * @return  the search term
+    */
+   public String searchTerm() {
+      return inputTf.getText();
+   }
+
+   /**
+    * Returns the entered replacement
+    *
+    * @return  the replacement
+    */
+   public String replacement() {
+      return replaceTf.getText();
+   }
+
+   /**
+    * Returns if the search is restricted to words
+    *
+    * @return  true if selected, false otherwise
+    */
+   public boolean isRequireWord() {
+      return cBxWord.isSelected();
+   }
+
+   /**
+    * Returns if the search is case sensitive
+    *
+    * @return  true if selected, false otherwise
+    */
+   public boolean isCaseSensitive() {
+      return cBxCase.isSelected();
+   }
+
+   /**
+    * Returns if the search term is a regular expression
+    *
+    * @return  true if selected, false otherwise
+    */
+   public boolean isRegex() {
+      return cBxRegex.isSelected();
+   }
+
+   /**
+    * Enables the button to cancel the search and disables the
+    * button to start a search, or vice versa
+    *
+    * @param b  true to enable cancelling, false to enable searching
+    */
+   public void enableCancel(boolean b) {
+      cancelBt.setEnabled(b);
+      enableSearch(!b);
+   }
+
+   /**
+    * Enables or disables the buttons to start a search or the preview
+    * of a replacement
+    *
+    * @param b  true to enable, false to disable
+    */
+   public void enableSearch(boolean b) {
+      searchBt.setEnabled(b);
+      previewBt.setEnabled(b);
+   }
+
+   /**
+    * Enables or disables the button to carry out a previewed
+    * replacement
+    *
+    * @param b  true to enable, false to disable
+    */
+   public void enableReplace(boolean b) {
+      replaceBt.setEnabled(b);
+   }
+
+   /**
+    * Removes all listed matches
+    *
+    * @param isPreview  true to show the lines in which the matches
+    * are replaced in the matches that are listed next
+    */
+   public void clearMatches(boolean isPreview) {
+      model.clear(isPreview);
+      TableColumnModel cm = table.getColumnModel();
+      int[] widths = isPreview ? new int[] {160, 40, 250, 250}
+            : new int[] {200, 40, 460};
+
+      for (int i = 0; i < widths.length; i++) {
+         cm.getColumn(i).setPreferredWidth(widths[i]);
+      }
+   }
+
+   /**
+    * Adds the specified matches to the listed matches
+    *
+    * @param matches  the list of FileMatch
+    */
+   public void addMatches(List<FileMatch> matches) {
+      model.add(matches);
+   }
+
+   /**
+    * Returns the number of listed matches
+    *
+    * @return  the number
+    */
+   public int nMatches() {
+      return model.getRowCount();
+   }
+
+   /**
+    * Displays a status message
+    *
+    * @param msg  the message
+    */
+   public void displayStatus(String msg) {
+      statusLb.setText(msg.isEmpty() ? " " : msg);
+   }
+
+   //
+   //--private--/
+   //
+
+   private void openSelected(Consumer<FileMatch> c) {
+      int row = table.getSelectedRow();
+      if (row != -1) {
+         c.accept(model.matchAt(table.convertRowIndexToModel(row)));
+      }
+   }
+
+   private String relativePath(File f) {
+      String path = f.getPath();
+      if (!root.isEmpty() && path.startsWith(root)
+            && path.length() > root.length()) {
+
+         return path.substring(root.length() + 1);
+      }
+      return path;
+   }
+
+   private void initFrame() {
+      frame.setTitle("Find in project");
+      frame.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+      frame.setContentPane(contentPnl());
+      frame.setSize(ScreenParams.scaledDimension(700, 450));
+      frame.setLocation(200, 100);
+      frame.setIconImage(IconFiles.EADGYTH_ICON_16.getImage());
+   }
+
+   private JPanel contentPnl() {
+      JPanel pnl = new JPanel(new BorderLayout());
+      pnl.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+      pnl.add(controlsPnl(), BorderLayout.NORTH);
+      pnl.add(tableScrollPane(), BorderLayout.CENTER);
+      statusLb.setFont(ScreenParams.scaledFontToPlain(statusLb.getFont(), 8));
+      statusLb.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
+      pnl.add(statusLb, BorderLayout.SOUTH);
+      return pnl;
+   }
+
+   private JPanel controlsPnl() {
+      JPanel pnl = new JPanel();
+      pnl.setLayout(new BoxLayout(pnl, BoxLayout.PAGE_AXIS));
+      JPanel inputPnl = new JPanel(new BorderLayout(5, 0));
+      JLabel lb = new JLabel("Search for:");
+      lb.setFont(ScreenParams.scaledFontToBold(lb.getFont(), 8));
+      inputPnl.add(lb, BorderLayout.WEST);
+      inputTf.setFont(ScreenParams.scaledFontToPlain(inputTf.getFont(), 8));
+      inputPnl.add(inputTf, BorderLayout.CENTER);
+      pnl.add(inputPnl);
+      pnl.add(Box.createVerticalStrut(5));
+      JPanel replacePnl = new JPanel(new BorderLayout(5, 0));
+      JLabel replaceLb = new JLabel("Replace with:");
+      replaceLb.setFont(ScreenParams.scaledFontToBold(replaceLb.getFont(), 8));
+      replaceLb.setPreferredSize(lb.getPreferredSize());
+      replacePnl.add(replaceLb, BorderLayout.WEST);
+      replaceTf.setFont(ScreenParams.scaledFontToPlain(replaceTf.getFont(), 8));
+      replacePnl.add(replaceTf, BorderLayout.CENTER);
+      pnl.add(replacePnl);
+
+      JPanel optionsPnl = new JPanel(new FlowLayout(FlowLayout.LEFT));
+      JCheckBox[] cBx = { cBxWord, cBxCase, cBxRegex };
+      for (JCheckBox c : cBx) {
+         c.setFocusable(false);
+         c.setFont(ScreenParams.scaledFontToPlain(c.getFont(), 8));
+         optionsPnl.add(c);
+      }
+      JButton[] bts = { searchBt, cancelBt, previewBt, replaceBt };
+      for (JButton bt : bts) {
+         bt.setFocusable(false);
+         optionsPnl.add(bt);
+      }
+      pnl.add(optionsPnl);
+      return pnl;
+   }
+
+   private JScrollPane tableScrollPane() {
+      table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+      table.setFillsViewportHeight(true);
+      table.setShowGrid(false);
+      table.setFont(ScreenParams.scaledFontToPlain(table.getFont(), 8));
+      clearMatches(false);
+      return new JScrollPane(table);
+   }
+
+   @SuppressWarnings("serial")
+   private final class MatchesModel extends AbstractTableModel {
+
+      private final List<FileMatch> matches = new ArrayList<>();
+
+      private boolean isPreview = false;
+
+      @Override
+      public int getRowCount() {
+         return matches.size();
+      }
+
+      @Override
+      public int getColumnCount() {
+         return isPreview ? COLUMNS.length : COLUMNS.length - 1;
+      }
+
+      @Override
+      public String getColumnName(int col) {
+         return COLUMNS[col];
+      }
+
+      @Override
+      public Object getValueAt(int row, int col) {
+         FileMatch m = matches.get(row);
+         switch (col) {
+            case 0:
+               return relativePath(m.file());
+            case 1:
+               return m.line();
+            case 2:
+               return m.lineText().trim();
+            default:
+               if (m.replacement() == null) {
+                  return "(skipped, the file cannot be decoded without loss)";
+               }
+               return m.replacedLineText().trim();
+         }
+      }
+
+      private FileMatch matchAt(int row) {
+         return matches.get(row);
+      }
+
+      private void add(List<FileMatch> toAdd) {
+         int first = matches.size();
+         matches.addAll(toAdd);
+         fireTableRowsInserted(first, matches.size() - 1);
+      }
+
+      private void clear(boolean isPreview) {
+         matches.clear();
+         if (this.isPreview != isPreview) {
+            this.isPreview = isPreview;
+            fireTableStructureChanged();
+         }
+         else {
+            fireTableDataChanged();
+         }
+      }
+   }
+}
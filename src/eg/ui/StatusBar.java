@@ -22,6 +22,8 @@ public class StatusBar {
    private final JLabel languageLb = new JLabel();
    private final JLabel cursorPosLb = new JLabel();
    private final JLabel wordwrapLb = new JLabel();
+   private final JLabel undoMemoryLb = new JLabel();
+   private final JLabel messageLb = new JLabel();
 
    public StatusBar() {
       init();
@@ -80,6 +82,35 @@ public class StatusBar {
       projectLb.setText("Current project: " + projName);
    }
 
+   /**
+    * Displays the memory used to store undoable edits
+    *
+    * @param bytes  the number of bytes
+    */
+   public void displayUndoMemoryUsage(long bytes) {
+      String size;
+      if (bytes < 1 << 10) {
+         size = bytes + " B";
+      }
+      else if (bytes < 1 << 20) {
+         size = (bytes >> 10) + " KB";
+      }
+      else {
+         size = String.format("%.1f MB", bytes / (double) (1 << 20));
+      }
+      undoMemoryLb.setText("Undo: " + size);
+   }
+
+   /**
+    * Displays a message
+    *
+    * @param msg  the message
+    */
+   public void displayMessage(String msg) {
+      messageLb.setText(msg);
+      messageLb.setToolTipText(msg.isEmpty() ? null : msg);
+   }
+
    //--private--/
 
    private void init() {
@@ -89,11 +120,15 @@ public class StatusBar {
       Dimension width100 = ScreenParams.scaledDimension(100, lbHeight);
       Dimension width150 = ScreenParams.scaledDimension(150, lbHeight);
       Dimension width200 = ScreenParams.scaledDimension(200, lbHeight);
-      JLabel[] lbArr = { languageLb, projectLb, cursorPosLb, wordwrapLb };
+      JLabel[] lbArr = { languageLb, projectLb, cursorPosLb, wordwrapLb,
+            undoMemoryLb, messageLb };
+
       setLbFont(lbArr);
       setLbWidth(languageLb, width100);
       setLbWidth(projectLb, width200);
       setLbWidth(cursorPosLb, width150);
+      setLbWidth(undoMemoryLb, width100);
+      setLbWidth(messageLb, width200);
       content.setLayout(new BoxLayout(content, BoxLayout.LINE_AXIS));
       content.add(Box.createRigidArea(width5));
       content.add(languageLb);
@@ -103,6 +138,10 @@ public class StatusBar {
       content.add(wordwrapLb);
       content.add(Box.createRigidArea(width5));
       content.add(cursorPosLb);
+      content.add(Box.createRigidArea(width20));
+      content.add(undoMemoryLb);
+      content.add(Box.createRigidArea(width20));
+      content.add(messageLb);
       projectLb.setText("Current project: none");
    }
 
@@ -1,5 +1,6 @@
 package eg.ui.menu;
 
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.ActionEvent;
 
@@ -30,6 +31,7 @@ public class ProjectMenu {
    private final JMenuItem changeProjItm
          = new JMenuItem("Change project", IconFiles.CHANGE_PROJ_ICON);
 
+   private final JMenuItem searchItm = new JMenuItem("Find in project ...");
    private final JMenuItem compileItm
          = new JMenuItem("Save and compile", IconFiles.COMPILE_ICON);
 
@@ -61,6 +63,7 @@ public class ProjectMenu {
       }
       openSetWinItm.addActionListener(e -> p.openSettingsWindow());
       changeProjItm.addActionListener(e -> p.change());
+      searchItm.addActionListener(e -> p.openProjectSearch());
       compileItm.addActionListener(e -> p.compile());
       runItm.addActionListener(e -> p.run());
       buildItm.addActionListener(e -> p.build());
@@ -107,6 +110,16 @@ public class ProjectMenu {
       changeProjItm.setEnabled(b);
    }
 
+   /**
+    * Enables or disables the item for actions to open the window for
+    * the search in the files of a project
+    *
+    * @param b  true to enable, false to disable
+    */
+   public void enableSearchItm(boolean b) {
+      searchItm.setEnabled(b);
+   }
+
    /**
     * Enables the item for actions to compile a project
     *
@@ -164,6 +177,8 @@ public class ProjectMenu {
       menu.add(openSetWinItm);
       menu.add(changeProjItm);
       menu.addSeparator();
+      menu.add(searchItm);
+      menu.addSeparator();
       menu.add(compileItm);
       menu.add(runItm);
       menu.add(buildItm);
@@ -171,6 +186,7 @@ public class ProjectMenu {
       assignProjMenu.setEnabled(false);
       openSetWinItm.setEnabled(false);
       changeProjItm.setEnabled(false);
+      searchItm.setEnabled(false);
       compileItm.setEnabled(false);
       runItm.setEnabled(false);
       buildItm.setEnabled(false);
@@ -182,5 +198,8 @@ public class ProjectMenu {
 
       runItm.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R,
             SystemParams.MODIFIER_MASK));
+
+      searchItm.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F,
+            SystemParams.MODIFIER_MASK | InputEvent.SHIFT_DOWN_MASK));
    }
 }
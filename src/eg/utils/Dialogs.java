@@ -1,6 +1,7 @@
 package eg.utils;
 
 import java.awt.BorderLayout;
+import java.awt.GridLayout;
 
 import javax.swing.JDialog;
 import javax.swing.JOptionPane;
@@ -164,5 +165,73 @@ public class Dialogs {
       }
    }
 
+  /**
+   * Shows a dialog with the option to enter text in labeled text
+   * fields
+   *
+   * @param message  the message for the dialog
+   * @param title  the title for the dialog
+   * @param labels  the labels for the text fields
+   * @param initTexts  the texts that are initially shown in the text
+   * fields
+   * @return  the array of strings entered in the text fields if ok is
+   * clicked, null otherwise
+   */
+  public static String[] textFieldsInput(String message, String title,
+         String[] labels, String[] initTexts) {
+
+      if (labels.length != initTexts.length) {
+         throw new IllegalArgumentException(
+               "The numbers of labels and texts differ");
+      }
+      JPanel fieldsPnl = new JPanel(new GridLayout(0, 1));
+      JTextField[] tf = new JTextField[labels.length];
+      for (int i = 0; i < tf.length; i++) {
+         tf[i] = new JTextField(initTexts[i]);
+         tf[i].setFont(ScreenParams.scaledFontToPlain(tf[i].getFont(), 8));
+         JLabel lb = new JLabel(labels[i]);
+         lb.setFont(ScreenParams.scaledFontToPlain(lb.getFont(), 8));
+         fieldsPnl.add(lb);
+         fieldsPnl.add(tf[i]);
+      }
+      JTextField first = tf[0];
+      first.addAncestorListener(new AncestorListener() {
+
+         @Override
+         public void ancestorRemoved(AncestorEvent e) {
+            // not used
+         }
+
+         @Override
+         public void ancestorMoved(AncestorEvent e) {
+            // not used
+         }
+
+         @Override
+         public void ancestorAdded(AncestorEvent e) {
+            first.requestFocusInWindow();
+         }
+      });
+      JPanel pnl = new JPanel(new BorderLayout());
+      JLabel lb = new JLabel(message);
+      lb.setFont(ScreenParams.scaledFontToPlain(first.getFont(), 9));
+      lb.setBorder(EMPTY_BORDER);
+      pnl.add(lb, BorderLayout.NORTH);
+      pnl.add(fieldsPnl, BorderLayout.CENTER);
+      int res = JOptionPane.showConfirmDialog(null, pnl, title,
+               JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+      if (JOptionPane.YES_OPTION == res) {
+         String[] texts = new String[tf.length];
+         for (int i = 0; i < tf.length; i++) {
+            texts[i] = tf[i].getText();
+         }
+         return texts;
+      }
+      else {
+         return null;
+      }
+   }
+
    private Dialogs() {}
 }
@@ -0,0 +1,244 @@
+package eg.utils;
+
+/**
+ * The index of line starts in a text which is updated incrementally
+ * for insertions and removals.
+ * <p>
+ * The start positions are kept in a sorted int array. A shift of
+ * positions that results from a change is not applied to all
+ * following lines at once but is recorded as pending for the lines
+ * behind a 'step' line and is moved along to the line of the next
+ * change. Typing in the same region thus updates only few entries
+ * while line numbers and line starts are found by binary search.
+ * <p>
+ * Line numbers are one-based.
+ */
+public class LineIndex {
+
+   private static final char NEW_LINE = '\n';
+
+   private int[] starts = new int[256];
+   private int nLines = 1;
+   private int length = 0;
+   //
+   // stepLength is pending for all entries with an index > stepIndex
+   private int stepIndex = 0;
+   private int stepLength = 0;
+
+   /**
+    * Rebuilds this index for the specified text
+    *
+    * @param text  the text
+    */
+   public void reset(CharSequence text) {
+      nLines = 1;
+      stepIndex = 0;
+      stepLength = 0;
+      length = text.length();
+      for (int i = 0; i < length; i++) {
+         if (text.charAt(i) == NEW_LINE) {
+            ensureCapacity(nLines + 1);
+            starts[nLines] = i + 1;
+            nLines++;
+         }
+      }
+   }
+
+   /**
+    * Updates this index for an insertion
+    *
+    * @param text  the text that already contains the insertion
+    * @param pos  the position where the insertion starts
+    * @param len  the length of the insertion
+    */
+   public void insert(CharSequence text, int pos, int len) {
+      if (pos < 0 || pos > length) {
+         throw new IllegalArgumentException(
+               "The position is out of range: " + pos);
+      }
+      int index = indexAtPos(pos);
+      moveStep(index);
+      stepLength += len;
+      length += len;
+      int k = 0;
+      for (int i = pos; i < pos + len; i++) {
+         if (text.charAt(i) == NEW_LINE) {
+            k++;
+         }
+      }
+      if (k == 0) {
+         return;
+      }
+      ensureCapacity(nLines + k);
+      System.arraycopy(starts, index + 1, starts, index + 1 + k,
+            nLines - index - 1);
+
+      int j = index + 1;
+      for (int i = pos; i < pos + len; i++) {
+         if (text.charAt(i) == NEW_LINE) {
+            //
+            // the stored value must include the pending step
+            starts[j++] = i + 1 - stepLength;
+         }
+      }
+      nLines += k;
+   }
+
+   /**
+    * Updates this index for a removal
+    *
+    * @param pos  the position where the removal starts
+    * @param len  the length of the removal
+    */
+   public void remove(int pos, int len) {
+      if (pos < 0 || pos + len > length) {
+         throw new IllegalArgumentException(
+               "The range is out of range: " + pos + ", " + len);
+      }
+      int index = indexAtPos(pos);
+      int k = indexAtPos(pos + len) - index;
+      moveStep(index);
+      if (k > 0) {
+         System.arraycopy(starts, index + 1 + k, starts, index + 1,
+               nLines - index - 1 - k);
+
+         nLines -= k;
+      }
+      stepLength -= len;
+      length -= len;
+   }
+
+   /**
+    * Returns the number of lines
+    *
+    * @return  the number of lines
+    */
+   public int lineCount() {
+      return nLines;
+   }
+
+   /**
+    * Returns the number of the line that contains the specified
+    * position. A newline character belongs to the line it ends.
+    *
+    * @param pos  the position
+    * @return  the line number
+    */
+   public int lineNrAtPos(int pos) {
+      return indexAtPos(pos) + 1;
+   }
+
+   /**
+    * Returns the start position of the specified line
+    *
+    * @param lineNr  the line number
+    * @return  the position
+    */
+   public int lineStart(int lineNr) {
+      checkLineNr(lineNr);
+      return start(lineNr - 1);
+   }
+
+   /**
+    * Returns the end position of the specified line, i.e. the
+    * position of the newline character that ends the line or the
+    * length of the text for the last line
+    *
+    * @param lineNr  the line number
+    * @return  the position
+    */
+   public int lineEnd(int lineNr) {
+      checkLineNr(lineNr);
+      return lineNr == nLines ? length : start(lineNr) - 1;
+   }
+
+   /**
+    * Returns the column number of the specified position
+    *
+    * @param pos  the position
+    * @return  the column number; one-based
+    */
+   public int columnNr(int pos) {
+      return pos - start(indexAtPos(pos)) + 1;
+   }
+
+   /**
+    * Returns the position of the last newline before the specified
+    * position even if a newline is found at the position
+    *
+    * @param pos  the position
+    * @return  the last newline position, -1 if the line is the first
+    * line
+    * @see LinesFinder#lastNewline
+    */
+   public int lastNewline(int pos) {
+      return start(indexAtPos(pos)) - 1;
+   }
+
+   /**
+    * Returns the position of the next newline at or behind the
+    * specified position
+    *
+    * @param pos  the position
+    * @return  the position of the next newline character. The length
+    * of text if no newline character is found
+    * @see LinesFinder#nextNewline
+    */
+   public int nextNewline(int pos) {
+      return lineEnd(indexAtPos(pos) + 1);
+   }
+
+   //
+   //--private--/
+   //
+
+   private int start(int index) {
+      return index > stepIndex ? starts[index] + stepLength : starts[index];
+   }
+
+   private int indexAtPos(int pos) {
+      int lo = 0;
+      int hi = nLines - 1;
+      while (lo < hi) {
+         int mid = (lo + hi + 1) >>> 1;
+         if (start(mid) <= pos) {
+            lo = mid;
+         }
+         else {
+            hi = mid - 1;
+         }
+      }
+      return lo;
+   }
+
+   private void moveStep(int index) {
+      if (stepLength != 0) {
+         if (index > stepIndex) {
+            for (int i = stepIndex + 1; i <= index; i++) {
+               starts[i] += stepLength;
+            }
+         }
+         else if (index < stepIndex) {
+            for (int i = index + 1; i <= stepIndex; i++) {
+               starts[i] -= stepLength;
+            }
+         }
+      }
+      stepIndex = index;
+   }
+
+   private void ensureCapacity(int size) {
+      if (size > starts.length) {
+         int[] newStarts = new int[Math.max(size, starts.length * 2)];
+         System.arraycopy(starts, 0, newStarts, 0, nLines);
+         starts = newStarts;
+      }
+   }
+
+   private void checkLineNr(int lineNr) {
+      if (lineNr < 1 || lineNr > nLines) {
+         throw new IllegalArgumentException(
+               "No such line number: " + lineNr);
+      }
+   }
+}
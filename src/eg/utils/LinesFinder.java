@@ -15,7 +15,7 @@ public class LinesFinder {
     * @param pos  the pos
     * @return  the line
     */
-   public static String lineAtPos(String text, int pos) {
+   public static String lineAtPos(CharSequence text, int pos) {
       int lastNewline = LinesFinder.lastNewline(text, pos);
       return line(text, lastNewline);
    }
@@ -29,14 +29,14 @@ public class LinesFinder {
     * @return  the line
     * @see #lastNewline
     */
-   public static String line(String text, int lastNewline) {
+   public static String line(CharSequence text, int lastNewline) {
       if (text.length() == 0) {
-         return text;
+         return "";
       }
       else {
          int start = lastNewline + 1;
          int lineEnd = LinesFinder.nextNewline(text, start);
-         return text.substring(start, lineEnd);
+         return text.subSequence(start, lineEnd).toString();
       }
    }
 
@@ -51,9 +51,9 @@ public class LinesFinder {
     * @return  the line or lines
     * @see #lastNewline
     */
-   public static String lines(String text, int lastNewline, int length) {
+   public static String lines(CharSequence text, int lastNewline, int length) {
       int linesEnd = LinesFinder.nextNewline(text, lastNewline + length);
-      return text.substring(lastNewline + 1, linesEnd);
+      return text.subSequence(lastNewline + 1, linesEnd).toString();
    }
 
    /**
@@ -64,10 +64,10 @@ public class LinesFinder {
     * @param pos  the position
     * @return  the last newline position, -1 if the line is the first line
     */
-   public static int lastNewline(String text, int pos) {
-      int i = text.lastIndexOf(NEW_LINE, pos);
+   public static int lastNewline(CharSequence text, int pos) {
+      int i = TextUtils.lastIndexOf(text, NEW_LINE, pos);
       if (i == pos) {
-         i = text.lastIndexOf(NEW_LINE, pos - 1);
+         i = TextUtils.lastIndexOf(text, NEW_LINE, pos - 1);
       }
       return i;
    }
@@ -82,8 +82,8 @@ public class LinesFinder {
     * @return  the position of the next newline character. The length
     * of text if no newline character is found
     */
-   public static int nextNewline(String text, int pos) {
-      int i = text.indexOf(NEW_LINE, pos);
+   public static int nextNewline(CharSequence text, int pos) {
+      int i = TextUtils.indexOf(text, NEW_LINE, pos);
       if (i == -1) {
          i = text.length();
       }
@@ -97,11 +97,11 @@ public class LinesFinder {
     * @param pos  the position
     * @return  the number
     */
-   public static int lineNrAtPos(String text, int pos) {
+   public static int lineNrAtPos(CharSequence text, int pos) {
       int count = 0;
       int i = 0;
       while (i != -1) {
-         i = text.indexOf(NEW_LINE, i);
+         i = TextUtils.indexOf(text, NEW_LINE, i);
          if (i != -1) {
             if (i >= pos) {
                break;
@@ -119,11 +119,11 @@ public class LinesFinder {
     * @param text  the text
     * @return  the line number
     */
-   public static int lineCount(String text) {
+   public static int lineCount(CharSequence text) {
       int count = 1;
       int i = 0;
       while (i != -1) {
-         i = text.indexOf(NEW_LINE, i);
+         i = TextUtils.indexOf(text, NEW_LINE, i);
          if (i != -1) {
             count++;
             i++;
@@ -139,8 +139,8 @@ public class LinesFinder {
     * @param text  the text
     * @return  the boolean value; true if multiline
     */
-   public static boolean isMultiline(String text) {
-      return text.length() > 1 && text.indexOf(NEW_LINE) > -1;
+   public static boolean isMultiline(CharSequence text) {
+      return text.length() > 1 && TextUtils.indexOf(text, NEW_LINE, 0) > -1;
    }
 
    //
@@ -0,0 +1,192 @@
+package eg.utils;
+
+/**
+ * Static methods to search in text that is given as
+ * <code>CharSequence</code>. The methods behave like the
+ * corresponding methods in <code>String</code> but do not
+ * require that the text is copied into a <code>String</code>
+ */
+public class TextUtils {
+
+   /**
+    * Returns the position of the first occurrence of the specified
+    * character at or behind the specified position
+    *
+    * @param text  the text
+    * @param c  the character
+    * @param from  the position where the search starts
+    * @return  the position; -1 if not found
+    * @see String#indexOf(int,int)
+    */
+   public static int indexOf(CharSequence text, char c, int from) {
+      if (text instanceof String) {
+         return ((String) text).indexOf(c, from);
+      }
+      int i = from < 0 ? 0 : from;
+      for (; i < text.length(); i++) {
+         if (text.charAt(i) == c) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Returns the position of the first occurrence of the specified
+    * string at or behind the specified position
+    *
+    * @param text  the text
+    * @param s  the string
+    * @param from  the position where the search starts
+    * @return  the position; -1 if not found
+    * @see String#indexOf(String,int)
+    */
+   public static int indexOf(CharSequence text, String s, int from) {
+      if (text instanceof String) {
+         return ((String) text).indexOf(s, from);
+      }
+      return indexOf(text, s, from, false);
+   }
+
+   /**
+    * Returns the position of the first occurrence of the specified
+    * string at or behind the specified position, optionally without
+    * case sensitivity
+    *
+    * @param text  the text
+    * @param s  the string
+    * @param from  the position where the search starts
+    * @param ignoreCase  true to ignore case
+    * @return  the position; -1 if not found
+    */
+   public static int indexOf(CharSequence text, String s, int from,
+         boolean ignoreCase) {
+
+      int n = text.length();
+      int m = s.length();
+      int i = from < 0 ? 0 : from;
+      if (m == 0) {
+         return i <= n ? i : n;
+      }
+      int max = n - m;
+      for (; i <= max; i++) {
+         if (regionMatches(text, i, s, ignoreCase)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Returns the position of the last occurrence of the specified
+    * character at or before the specified position
+    *
+    * @param text  the text
+    * @param c  the character
+    * @param from  the position where the search starts
+    * @return  the position; -1 if not found
+    * @see String#lastIndexOf(int,int)
+    */
+   public static int lastIndexOf(CharSequence text, char c, int from) {
+      if (text instanceof String) {
+         return ((String) text).lastIndexOf(c, from);
+      }
+      int i = from >= text.length() ? text.length() - 1 : from;
+      for (; i >= 0; i--) {
+         if (text.charAt(i) == c) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Returns the position of the last occurrence of the specified
+    * string at or before the specified position
+    *
+    * @param text  the text
+    * @param s  the string
+    * @param from  the position where the search starts
+    * @return  the position; -1 if not found
+    * @see String#lastIndexOf(String,int)
+    */
+   public static int lastIndexOf(CharSequence text, String s, int from) {
+      if (text instanceof String) {
+         return ((String) text).lastIndexOf(s, from);
+      }
+      return lastIndexOf(text, s, from, false);
+   }
+
+   /**
+    * Returns the position of the last occurrence of the specified
+    * string at or before the specified position, optionally without
+    * case sensitivity
+    *
+    * @param text  the text
+    * @param s  the string
+    * @param from  the position where the search starts
+    * @param ignoreCase  true to ignore case
+    * @return  the position; -1 if not found
+    */
+   public static int lastIndexOf(CharSequence text, String s, int from,
+         boolean ignoreCase) {
+
+      int max = text.length() - s.length();
+      int i = from > max ? max : from;
+      if (i < 0) {
+         return -1;
+      }
+      for (; i >= 0; i--) {
+         if (regionMatches(text, i, s, ignoreCase)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Returns if the text contains the specified string at the
+    * specified position
+    *
+    * @param text  the text
+    * @param s  the string
+    * @param pos  the position
+    * @return  true if the string is found at pos, false otherwise
+    * @see String#startsWith(String,int)
+    */
+   public static boolean startsWith(CharSequence text, String s, int pos) {
+      if (text instanceof String) {
+         return ((String) text).startsWith(s, pos);
+      }
+      if (pos < 0 || pos > text.length() - s.length()) {
+         return false;
+      }
+      return regionMatches(text, pos, s, false);
+   }
+
+   //
+   //--private--/
+   //
+
+   private static boolean regionMatches(CharSequence text, int pos, String s,
+         boolean ignoreCase) {
+
+      for (int j = 0; j < s.length(); j++) {
+         char c1 = text.charAt(pos + j);
+         char c2 = s.charAt(j);
+         if (c1 != c2 && (!ignoreCase || !equalsIgnoreCase(c1, c2))) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean equalsIgnoreCase(char c1, char c2) {
+      char u1 = Character.toUpperCase(c1);
+      char u2 = Character.toUpperCase(c2);
+      return u1 == u2
+            || Character.toLowerCase(u1) == Character.toLowerCase(u2);
+   }
+
+   private TextUtils() {}
+}